@@ -0,0 +1,89 @@
+#!/bin/bash
+
+# Runs the ClaimRelease benchmarks with the benchmark JVMs pinned to chosen CPUs with taskset,
+# so the results show how the pools cope with SMT siblings and cross-socket cache traffic.
+# The forked benchmark JVMs inherit the CPU affinity of the runner. Linux only.
+
+THREAD_COUNTS=( 1 2 4 8 16 )
+PLACEMENTS=( same-core smt-siblings same-socket cross-socket )
+FORKS=5
+ITERS=10
+WITERS=10
+POOL_SIZE=100
+SYS=/sys/devices/system/cpu
+
+if [ "Linux" != "$(uname -s)" ]
+then
+  echo "The affinity suite needs Linux, for taskset and $SYS"
+  exit 1
+fi
+
+# Prints a "cpu core socket" line for every logical CPU.
+topology() {
+  for CPU_DIR in $SYS/cpu[0-9]*
+  do
+    if [ -f "$CPU_DIR/topology/core_id" ]
+    then
+      echo "${CPU_DIR##*/cpu} $(cat $CPU_DIR/topology/core_id) $(cat $CPU_DIR/topology/physical_package_id)"
+    fi
+  done | sort -n
+}
+
+# Prints the comma separated CPUs of a placement, in the order they should be used.
+placement_cpus() {
+  case "$1" in
+    same-core)
+      echo 0 ;;
+    smt-siblings)
+      cat $SYS/cpu0/topology/thread_siblings_list ;;
+    same-socket)
+      topology | awk '$3 == 0 && !seen[$2]++ { print $1 }' | paste -sd, - ;;
+    cross-socket)
+      topology | awk '
+        !seen[$3 " " $2]++ { n[$3]++; cpus[$3, n[$3]] = $1; if ($3 > max) max = $3 }
+        END {
+          if (max == 0) exit
+          for (i = 1; ; i++) {
+            any = 0
+            for (s = 0; s <= max; s++) if (i <= n[s]) { printf "%s%s", sep, cpus[s, i]; sep = ","; any = 1 }
+            if (!any) break
+          }
+          print ""
+        }' ;;
+  esac
+}
+
+CORES="$(grep -c "processor" /proc/cpuinfo)"
+SOCKETS="$(topology | awk '{ print $3 }' | sort -u | wc -l)"
+PHYSICAL="$(topology | awk '!seen[$3 " " $2]++' | wc -l)"
+SMT="$(( CORES / PHYSICAL ))"
+DIR="results/$(date "+%Y-%m-%d")-$(uname -s)-$(uname -m)-${CORES}core-affinity-${SOCKETS}s${PHYSICAL}c${SMT}t"
+
+mkdir -p $DIR
+topology > "$DIR/topology.txt"
+if command -v lscpu > /dev/null
+then
+  lscpu >> "$DIR/topology.txt"
+fi
+mvn clean package
+
+for PLACEMENT in ${PLACEMENTS[@]}
+do
+  IFS=, read -r -a CPUS <<< "$(placement_cpus $PLACEMENT)"
+  if [ "${#CPUS[@]}" -eq 0 ] || [ "$PLACEMENT" == "cross-socket" -a "$SOCKETS" -lt 2 ]
+  then
+    echo "Skipping $PLACEMENT, which this machine does not have"
+    continue
+  fi
+  for THREADS in ${THREAD_COUNTS[@]}
+  do
+    if [ "$THREADS" -gt "${#CPUS[@]}" ] && [ "$PLACEMENT" == "same-socket" -o "$PLACEMENT" == "cross-socket" ]
+    then
+      continue
+    fi
+    COUNT=$(( THREADS < ${#CPUS[@]} ? THREADS : ${#CPUS[@]} ))
+    PINNED="$(IFS=,; echo "${CPUS[*]:0:$COUNT}")"
+    echo "Benchmarking with $THREADS worker threads on CPUs $PINNED ($PLACEMENT)"
+    taskset -c "$PINNED" java -jar target/benchmarks.jar '.*suite\.ClaimRelease\.cycle' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p poolSize=$POOL_SIZE -bm thrpt -jvmArgsAppend "-Daffinity.placement=$PLACEMENT -Daffinity.cpus=$PINNED" -rff "${DIR}/${PLACEMENT}-${THREADS}-threads-thrpt.json"
+  done
+done
@@ -0,0 +1,30 @@
+#!/bin/sh
+
+COLLECTORS=( "-XX:+UseG1GC" "-XX:+UnlockExperimentalVMOptions -XX:+UseZGC" "-XX:+UseParallelGC" )
+THREAD_COUNTS=( 1 4 )
+FORKS=3
+ITERS=10
+WITERS=10
+
+if [ "Linux" == "$(uname -s)" ]
+then
+  CORES="$(grep -c "processor" /proc/cpuinfo)"
+else
+  CORES="$(sysctl hw.ncpu | cut -d ' ' -f 2)"
+fi
+DIR="results/$(date "+%Y-%m-%d")-$(uname -s)-$(uname -m)-${CORES}core-breakeven"
+
+mkdir -p $DIR
+mvn clean package
+
+for COLLECTOR in "${COLLECTORS[@]}"
+do
+  GC="$(echo "$COLLECTOR" | sed -e 's/.*-XX:+Use\([A-Za-z0-9]*\)GC.*/\1/')"
+  for THREADS in ${THREAD_COUNTS[@]}
+  do
+    echo "Benchmarking the $GC collector with $THREADS worker threads"
+    java -jar target/benchmarks.jar '.*PoolingBreakeven.*' -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -jvmArgsAppend "$COLLECTOR" -rff "${DIR}/${GC}-${THREADS}-threads-avgt.json"
+  done
+done
+
+java -cp target/benchmarks.jar objectpoolbenchmark.results.Breakeven "$DIR" | tee "${DIR}/breakeven.txt"
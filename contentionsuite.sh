@@ -0,0 +1,25 @@
+#!/bin/sh
+
+THREAD_COUNTS=( 1 2 4 8 16 )
+FORKS=5
+ITERS=10
+WITERS=10
+USAGE_COST=${USAGE_COST:-1000cpu}
+
+if [ "Linux" == "$(uname -s)" ]
+then
+  CORES="$(grep -c "processor" /proc/cpuinfo)"
+else
+  CORES="$(sysctl hw.ncpu | cut -d ' ' -f 2)"
+fi
+DIR="results/$(date "+%Y-%m-%d")-$(uname -s)-$(uname -m)-${CORES}core-contention"
+
+mkdir -p $DIR
+mvn clean package
+
+for THREADS in ${THREAD_COUNTS[@]}
+do
+  echo "Benchmarking with $THREADS worker threads holding objects for $USAGE_COST"
+  java -jar target/benchmarks.jar '.*ClaimHoldRelease.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -jvmArgs "-Dcost.of.usage=$USAGE_COST" -bm thrpt -rff "${DIR}/${THREADS}-threads-thrpt.json"
+  java -jar target/benchmarks.jar '.*ClaimHoldRelease.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -jvmArgs "-Dcost.of.usage=$USAGE_COST" -bm sample -rff "${DIR}/${THREADS}-threads-sample.json"
+done
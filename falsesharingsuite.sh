@@ -0,0 +1,24 @@
+#!/bin/sh
+
+THREAD_COUNTS=( 1 2 4 8 16 )
+FORKS=5
+ITERS=10
+WITERS=10
+
+if [ "Linux" != "$(uname -s)" ]
+then
+  echo "The false sharing suite needs Linux, for the perf profilers"
+  exit 1
+fi
+CORES="$(grep -c "processor" /proc/cpuinfo)"
+DIR="results/$(date "+%Y-%m-%d")-$(uname -s)-$(uname -m)-${CORES}core-falsesharing"
+
+mkdir -p $DIR
+mvn clean package
+
+for THREADS in ${THREAD_COUNTS[@]}
+do
+  echo "Benchmarking with $THREADS worker threads"
+  java -jar target/benchmarks.jar '.*SlotStateCas.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -bm thrpt -prof perfnorm -rff "${DIR}/${THREADS}-threads-perfnorm.json"
+  java -jar target/benchmarks.jar '.*SlotStateCas.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -bm thrpt -prof objectpoolbenchmark.profile.PerfC2CProfiler -rff "${DIR}/${THREADS}-threads-perfc2c.json"
+done
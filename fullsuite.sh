@@ -20,6 +20,8 @@ mvn clean package
 for THREADS in ${THREAD_COUNTS[@]}
 do
   echo "Benchmarking with $THREADS worker threads"
-  java -jar target/benchmarks.jar '.*ClaimRelease.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p poolSize=$POOL_SIZE -bm thrpt -rff "${DIR}/${THREADS}-threads-thrpt.json"
-  java -jar target/benchmarks.jar '.*ClaimRelease.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p poolSize=$POOL_SIZE -bm sample -rff "${DIR}/${THREADS}-threads-sample.json"
+  java -jar target/benchmarks.jar '.*suite\.ClaimRelease\.cycle' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p poolSize=$POOL_SIZE -bm thrpt -rff "${DIR}/${THREADS}-threads-thrpt.json"
+  java -jar target/benchmarks.jar '.*suite\.ClaimRelease\.cycle' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p poolSize=$POOL_SIZE -bm sample -rff "${DIR}/${THREADS}-threads-sample.json"
 done
+
+java -cp target/benchmarks.jar objectpoolbenchmark.results.Results ingest results/results.db "$DIR"
@@ -0,0 +1,27 @@
+#!/bin/sh
+
+THREAD_COUNTS=( 1 2 4 8 16 )
+FORKS=5
+ITERS=10
+WITERS=10
+POOLS=${POOLS:-CommonsPool2,CommonsPool2+Magazine4,ViburObjectPool,ViburObjectPool+Magazine4,StormpotBlazePool,ConcurrentBag}
+
+if [ "Linux" == "$(uname -s)" ]
+then
+  CORES="$(grep -c "processor" /proc/cpuinfo)"
+else
+  CORES="$(sysctl hw.ncpu | cut -d ' ' -f 2)"
+fi
+DIR="results/$(date "+%Y-%m-%d")-$(uname -s)-$(uname -m)-${CORES}core-magazine"
+
+mkdir -p $DIR
+mvn clean package
+
+for THREADS in ${THREAD_COUNTS[@]}
+do
+  echo "Benchmarking with $THREADS worker threads"
+  java -jar target/benchmarks.jar '.*ClaimRelease.cycle' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p pool=$POOLS -bm thrpt -rff "${DIR}/${THREADS}-threads-thrpt.json"
+done
+java -jar target/benchmarks.jar '.*MagazineImbalance.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -bm thrpt -rff "${DIR}/imbalance-thrpt.json"
+
+java -cp target/benchmarks.jar objectpoolbenchmark.results.Results ingest results/results.db "$DIR"
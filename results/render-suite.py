@@ -0,0 +1,67 @@
+#!/usr/bin/python
+# -*- coding: utf8 -*-
+
+# Renders the throughput and the allocation per operation of the ClaimRelease
+# benchmarks in a fullsuite results directory, e.g.:
+#
+#   cd results && ./render-suite.py 2020-10-13-Linux-x86_64-8core
+
+from glob import glob
+import json
+import os
+import sys
+import pygal
+from pygal.style import CleanStyle as TheStyle
+
+
+def read_results(fnames):
+	results = []
+	for fname in fnames:
+		f = open(fname)
+		results.append(json.loads(f.read()))
+		f.close()
+	return results
+
+def pool_name(datapoint):
+	params = datapoint.get('params', {})
+	if 'pool' in params:
+		return params['pool']
+	return datapoint['benchmark'].split('.')[-2]
+
+def secondary_score(datapoint, suffix):
+	for name, metric in datapoint.get('secondaryMetrics', {}).items():
+		if name.endswith(suffix):
+			return metric['score']
+	return None
+
+def process_result(result, pools):
+	for datapoint in result:
+		if not datapoint['benchmark'].endswith('suite.ClaimRelease.cycle'):
+			continue
+		points = pools.setdefault(pool_name(datapoint), {})
+		points[datapoint['threads']] = {
+			'score': datapoint['primaryMetric']['score'],
+			'alloc': secondary_score(datapoint, 'gc.alloc.rate.norm')
+		}
+
+def render(title, y_title, pools, threads, key, fname):
+	chart = pygal.Line(style=TheStyle)
+	chart.title = title
+	chart.x_labels = [str(t) for t in threads]
+	chart.x_title = 'Threads'
+	chart.y_title = y_title
+	for pool in sorted(pools):
+		chart.add(pool, [pools[pool].get(t, {}).get(key) for t in threads])
+	chart.render_to_file(fname)
+
+directory = sys.argv[1]
+name = os.path.basename(os.path.normpath(directory))
+pools = {}
+for result in read_results(glob(os.path.join(directory, '*-threads-thrpt.json'))):
+	process_result(result, pools)
+
+threads = sorted(set(t for points in pools.values() for t in points))
+render('Throughput', 'claim/release cycles per microsecond',
+	pools, threads, 'score', name + '-throughput.svg')
+render('Allocation (gc.alloc.rate.norm)', 'bytes allocated per claim/release cycle',
+	pools, threads, 'alloc', name + '-allocation.svg')
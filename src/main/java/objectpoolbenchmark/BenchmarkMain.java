@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import objectpoolbenchmark.suite.PoolAdapters;
+
+/**
+ * The main class of the benchmarks jar. Runs JMH with the GC profiler
+ * attached, so the allocation rate per operation, {@code gc.alloc.rate.norm},
+ * is reported and saved next to the throughput of every benchmark.
+ *
+ * The GC profiler is not added if any other profiler is asked for with
+ * {@code -prof}. Ask for it explicitly, with {@code -prof gc}, to combine it
+ * with other profilers.
+ *
+ * The versions of the pool libraries in the jar are passed to the benchmark
+ * JVMs in the {@value PoolAdapters#VERSIONS_PROPERTY} system property, so they
+ * are recorded with the JVM arguments in the results. JMH only splits the
+ * value of {@code -jvmArgsAppend} into arguments when the option is given
+ * once, so the property is added to the value of one that is given already.
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws Exception {
+    List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+    if (!jmhArgs.contains("-prof")) {
+      jmhArgs.add("-prof");
+      jmhArgs.add("gc");
+    }
+    String versions = PoolAdapters.versions();
+    if (!versions.isEmpty()) {
+      appendJvmArg(jmhArgs, "-D" + PoolAdapters.VERSIONS_PROPERTY + "=" + versions);
+    }
+    org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+  }
+
+  private static void appendJvmArg(List<String> jmhArgs, String jvmArg) {
+    int option = jmhArgs.indexOf("-jvmArgsAppend");
+    if (option != -1 && option + 1 < jmhArgs.size()) {
+      jmhArgs.set(option + 1, jmhArgs.get(option + 1) + " " + jvmArg);
+    } else {
+      jmhArgs.add("-jvmArgsAppend");
+      jmhArgs.add(jvmArg);
+    }
+  }
+}
@@ -17,12 +17,14 @@ package objectpoolbenchmark;
 
 import java.util.concurrent.*;
 
-import org.apache.commons.pool2.impl.GenericObjectPool;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.PoolAdapters;
+import objectpoolbenchmark.suite.ResourceFactory;
+import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.PooledObjectFactory;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.junit.Test;
-import stormpot.*;
 
 public class PoolBenchmarkTest {
 
@@ -31,9 +33,14 @@ public class PoolBenchmarkTest {
   @Test
   public void benchmark() throws Exception {
     int size = 16;   // introduce the possibility of a little blocking
-    CommonPool storm = new StormPool(size);
-    CommonPool basic = new BasicPool(size);
-    CommonPool array = new ABQPool(size);
+    PoolAdapter storm = PoolAdapters.create("StormpotBlazePool");
+    PoolAdapter basic = new BasicPool();
+    PoolAdapter array = PoolAdapters.create("ArrayBlockingQueue");
+    storm.setResourceFactory(new StringBuilders());
+    array.setResourceFactory(new StringBuilders());
+    storm.create(size);
+    basic.create(size);
+    array.create(size);
 
     for (int at = 0; at != 50; ++at) {
       benchmark(storm);
@@ -50,12 +57,16 @@ public class PoolBenchmarkTest {
       arrayN += benchmark(array);
     }
 
+    storm.shutdown();
+    basic.shutdown();
+    array.shutdown();
+
     System.out.println("storm = " + ((double)(TimeUnit.NANOSECONDS.toMillis(stormN))) / 1000.00 ) ;
     System.out.println("basic = " + ((double)(TimeUnit.NANOSECONDS.toMillis(basicN))) / 1000.00 ) ;
     System.out.println("array = " + ((double)(TimeUnit.NANOSECONDS.toMillis(arrayN))) / 1000.00 ) ;
   }
 
-  private long benchmark(final CommonPool pool) throws Exception {
+  private long benchmark(final PoolAdapter pool) throws Exception {
     final int N = 5000;
     final CountDownLatch latch = new CountDownLatch(N);
     final Runnable runnable = new PooledOperation(pool, latch);
@@ -71,10 +82,10 @@ public class PoolBenchmarkTest {
   }
 
   final class PooledOperation implements Runnable {
-    private final CommonPool pool;
+    private final PoolAdapter pool;
     private final CountDownLatch latch;
 
-    PooledOperation(CommonPool pool, CountDownLatch latch) {
+    PooledOperation(PoolAdapter pool, CountDownLatch latch) {
       this.pool = pool;
       this.latch = latch;
     }
@@ -84,8 +95,8 @@ public class PoolBenchmarkTest {
       try {
         // perform two claims
         for (int at = 0; at != 1; ++at) {
-          final PooledStringBuilder pooled = pool.acquire();
-          operate(pooled.getValue());
+          final Object pooled = pool.claim();
+          operate((StringBuilder) pool.resource(pooled));
           pool.release(pooled);
         }
       }
@@ -109,125 +120,83 @@ public class PoolBenchmarkTest {
     }
   }
 
-  interface CommonPool {
-    PooledStringBuilder acquire() throws Exception;
-    void release(PooledStringBuilder builder);
-  }
-
-  private static class ABQPool implements CommonPool {
-    private BlockingQueue<PooledStringBuilder> queue;
-
-    ABQPool(int size) {
-      queue = new ArrayBlockingQueue<>(size);
-      for (int at = 0; at != size; ++at) {
-        queue.add(new PooledStringBuilder());
-      }
-    }
-
+  private static class StringBuilders implements ResourceFactory {
     @Override
-    public PooledStringBuilder acquire() throws Exception {
-      return queue.take();
+    public Object allocate() {
+      return new StringBuilder();
     }
 
     @Override
-    public void release(PooledStringBuilder builder) {
-      queue.add(builder);
-    }
-  }
-
-  private static class BasicPool implements CommonPool, PooledObjectFactory<PooledStringBuilder> {
-
-    private final GenericObjectPool<PooledStringBuilder> pool;
-
-    public BasicPool(int size) {
-      pool = new GenericObjectPool<>(this);
-      pool.setMaxTotal(size);
+    public boolean validate(Object resource) {
+      return true;
     }
 
     @Override
-    public PooledStringBuilder acquire() throws Exception {
-      return pool.borrowObject();
+    public void deallocate(Object resource) {
     }
+  }
 
-    @Override
-    public void release(PooledStringBuilder builder) {
-      pool.returnObject(builder);
-    }
+  /**
+   * The plain commons-pool2 setup, without the validation on borrow of the
+   * CommonsPool2 adapter.
+   */
+  private static class BasicPool implements PoolAdapter {
+    private GenericObjectPool<StringBuilder> pool;
 
     @Override
-    public PooledObject<PooledStringBuilder> makeObject() throws Exception {
-      return new DefaultPooledObject<>(new PooledStringBuilder());
+    public String name() {
+      return "basic";
     }
 
     @Override
-    public void destroyObject(PooledObject<PooledStringBuilder> p) throws Exception {
-
-    }
+    public void create(int poolSize) {
+      pool = new GenericObjectPool<>(new BasePooledObjectFactory<StringBuilder>() {
+        @Override
+        public StringBuilder create() {
+          return new StringBuilder();
+        }
 
-    @Override
-    public boolean validateObject(PooledObject<PooledStringBuilder> p) {
-      return true;
+        @Override
+        public PooledObject<StringBuilder> wrap(StringBuilder builder) {
+          return new DefaultPooledObject<>(builder);
+        }
+      });
+      pool.setMaxTotal(poolSize);
     }
 
     @Override
-    public void activateObject(PooledObject<PooledStringBuilder> p) throws Exception {
+    public Object claim() throws Exception {
+      return pool.borrowObject();
     }
 
     @Override
-    public void passivateObject(PooledObject<PooledStringBuilder> p) throws Exception {
-    }
-  }
-
-  private static class StormPool implements CommonPool, Allocator {
-    private final Pool<PooledStringBuilder> pool;
-    private final Timeout timeout = new Timeout(1, TimeUnit.MINUTES);
-
-    StormPool(int size) {
-      pool = Pool.from(this).setSize(size).build();
+    public void release(Object obj) {
+      pool.returnObject((StringBuilder) obj);
     }
 
     @Override
-    public PooledStringBuilder acquire() throws Exception {
-      return pool.claim(timeout);
+    public void shutdown() {
+      pool.close();
     }
 
     @Override
-    public void release(PooledStringBuilder builder) {
-      builder.release();
+    public boolean supportsTimeouts() {
+      return false;
     }
 
     @Override
-    public Poolable allocate(Slot slot) throws Exception {
-      return new PooledStringBuilder(slot);
+    public boolean supportsValidation() {
+      return false;
     }
 
     @Override
-    public void deallocate(Poolable poolable) throws Exception {
-    }
-  }
-
-  private static class PooledStringBuilder implements Poolable {
-    private final Slot slot;
-    private final StringBuilder builder = new StringBuilder();
-
-    PooledStringBuilder() {
-      this(null);
-    }
-
-    PooledStringBuilder(Slot slot) {
-      this.slot = slot;
-    }
-
-    public StringBuilder getValue() {
-      return builder;
+    public boolean supportsResources() {
+      return true;
     }
 
     @Override
-    public void release() {
-      if (slot != null)
-
-        slot.release(this);
+    public Object resource(Object obj) {
+      return obj;
     }
   }
 }
-
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.database;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import objectpoolbenchmark.suite.ResourceFactory;
+
+/**
+ * Makes the pools hold {@link FakeConnection}s to a {@link FakeDatabase}.
+ *
+ * Connections that have answered queries fail validation at the given rate,
+ * as if they had broken, so the pools have to replace them. Connections that
+ * have never been used always validate, because commons-pool2 fails the
+ * borrow when a newly created object does not validate.
+ */
+public class ConnectionFactory implements ResourceFactory {
+  private final FakeDatabase database;
+  private final double validationFailureRate;
+  private final LongAdder failedValidations = new LongAdder();
+
+  public ConnectionFactory(FakeDatabase database, double validationFailureRate) {
+    this.database = database;
+    this.validationFailureRate = validationFailureRate;
+  }
+
+  @Override
+  public Object allocate() throws Exception {
+    return database.connect();
+  }
+
+  @Override
+  public boolean validate(Object resource) {
+    FakeConnection connection = (FakeConnection) resource;
+    boolean broken = connection.isClosed() || connection.queries() > 0
+        && ThreadLocalRandom.current().nextDouble() < validationFailureRate;
+    if (broken) {
+      failedValidations.increment();
+    }
+    return !broken;
+  }
+
+  @Override
+  public void deallocate(Object resource) throws Exception {
+    ((FakeConnection) resource).close();
+  }
+
+  /**
+   * The number of connections that have failed validation so far.
+   */
+  public long failedValidations() {
+    return failedValidations.sum();
+  }
+}
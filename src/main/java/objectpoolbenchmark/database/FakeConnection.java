@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A client connection to a {@link FakeDatabase}. Connections are not thread
+ * safe, and are meant to be used by one thread at a time, through a pool.
+ */
+public class FakeConnection implements Closeable {
+  private final Socket socket;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+  private long queries;
+
+  FakeConnection(Socket socket) throws IOException {
+    this.socket = socket;
+    socket.setTcpNoDelay(true);
+    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+  }
+
+  /**
+   * Send the query to the database, and wait for the answer.
+   */
+  public long query(long query) throws IOException {
+    out.writeLong(query);
+    out.flush();
+    long answer = in.readLong();
+    if (answer != FakeDatabase.answer(query)) {
+      throw new IOException("Wrong answer " + answer + " to query " + query);
+    }
+    queries++;
+    return answer;
+  }
+
+  /**
+   * The number of queries this connection has answered.
+   */
+  public long queries() {
+    return queries;
+  }
+
+  public boolean isClosed() {
+    return socket.isClosed();
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+}
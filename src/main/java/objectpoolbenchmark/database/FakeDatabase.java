@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An in-process stand-in for a database server, that answers queries over
+ * loopback TCP connections, after a {@link Latency}.
+ *
+ * A query is a single long, and so is the answer. Every connection is served
+ * by a thread of its own, like in a thread-per-connection database server.
+ */
+public class FakeDatabase implements Closeable {
+  private final Latency latency;
+  private final ServerSocket serverSocket;
+  private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger connectionCounter = new AtomicInteger();
+
+  public FakeDatabase(Latency latency) throws IOException {
+    this.latency = latency;
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::accept, "fake-database-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Open a new connection to the database.
+   */
+  public FakeConnection connect() throws IOException {
+    return new FakeConnection(new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort()));
+  }
+
+  private void accept() {
+    try {
+      while (true) {
+        Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        sockets.add(socket);
+        Thread handler = new Thread(() -> serve(socket),
+            "fake-database-connection-" + connectionCounter.incrementAndGet());
+        handler.setDaemon(true);
+        handler.start();
+      }
+    } catch (IOException e) {
+      if (!serverSocket.isClosed()) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (Socket s = socket;
+         DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+      while (true) {
+        long query = in.readLong();
+        long nanos = latency.sampleNanos();
+        if (nanos > 0) {
+          LockSupport.parkNanos(nanos);
+        }
+        out.writeLong(answer(query));
+        out.flush();
+      }
+    } catch (EOFException | SocketException e) {
+      // The connection was closed by either side.
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      sockets.remove(socket);
+    }
+  }
+
+  static long answer(long query) {
+    return query * 31 + 1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+  }
+}
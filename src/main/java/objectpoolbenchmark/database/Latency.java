@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.database;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long the {@link FakeDatabase} takes to answer a query.
+ */
+public abstract class Latency {
+  /**
+   * @param distribution Either "fixed", for always taking the mean time, or
+   * "exponential", for exponentially distributed times with the given mean.
+   * @param meanNanos The mean latency in nanoseconds.
+   */
+  public static Latency of(String distribution, long meanNanos) {
+    switch (distribution) {
+      case "fixed": return new Fixed(meanNanos);
+      case "exponential": return new Exponential(meanNanos);
+      default: throw new IllegalArgumentException(
+          "Unknown latency distribution '" + distribution + "', expected fixed or exponential");
+    }
+  }
+
+  public abstract long sampleNanos();
+
+  private static final class Fixed extends Latency {
+    private final long nanos;
+
+    Fixed(long nanos) {
+      this.nanos = nanos;
+    }
+
+    @Override
+    public long sampleNanos() {
+      return nanos;
+    }
+  }
+
+  private static final class Exponential extends Latency {
+    private final double meanNanos;
+
+    Exponential(long meanNanos) {
+      this.meanNanos = meanNanos;
+    }
+
+    @Override
+    public long sampleNanos() {
+      return (long) (-meanNanos * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+    }
+  }
+}
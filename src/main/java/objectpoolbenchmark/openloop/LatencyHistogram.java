@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.openloop;
+
+import java.io.PrintStream;
+
+/**
+ * A log-linear histogram of latencies in nanoseconds, in the style of
+ * HdrHistogram, with a precision of about two significant digits.
+ *
+ * Each worker thread records into its own histogram, so it is not thread-safe.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 8;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+  private static final double[] PERCENTILES = {
+      0.0, 50.0, 75.0, 90.0, 99.0, 99.9, 99.99, 99.999, 100.0};
+
+  private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT];
+  private long totalCount;
+  private long maxValue;
+  private double sum;
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts[indexOf(nanos)]++;
+    totalCount++;
+    sum += nanos;
+    if (nanos > maxValue) {
+      maxValue = nanos;
+    }
+  }
+
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    sum += other.sum;
+    maxValue = Math.max(maxValue, other.maxValue);
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public double getMean() {
+    return totalCount == 0 ? 0 : sum / totalCount;
+  }
+
+  public long getMaxValue() {
+    return maxValue;
+  }
+
+  public long getValueAtPercentile(double percentile) {
+    long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= countAtPercentile) {
+        return Math.min(highestEquivalentValue(i), maxValue);
+      }
+    }
+    return maxValue;
+  }
+
+  /**
+   * Print the percentile distribution in microseconds, laid out like the
+   * HdrHistogram {@code outputPercentileDistribution} output.
+   */
+  public void print(PrintStream out) {
+    out.printf("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+    for (double percentile : PERCENTILES) {
+      long value = getValueAtPercentile(percentile);
+      long count = countAtOrBelow(value);
+      double fraction = percentile / 100.0;
+      if (fraction < 1.0) {
+        out.printf("%12.3f %14.12f %10d %14.2f%n",
+            value / 1000.0, fraction, count, 1.0 / (1.0 - fraction));
+      } else {
+        out.printf("%12.3f %14.12f %10d%n", value / 1000.0, fraction, count);
+      }
+    }
+    out.printf("#[Mean    = %12.3f, Total count    = %12d]%n", getMean() / 1000.0, totalCount);
+    out.printf("#[Max     = %12.3f, Unit           = %12s]%n", maxValue / 1000.0, "us");
+  }
+
+  private long countAtOrBelow(long value) {
+    int index = indexOf(value);
+    long count = 0;
+    for (int i = 0; i <= index; i++) {
+      count += counts[i];
+    }
+    return count;
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return exponent * SUB_BUCKET_HALF_COUNT + (int) (value >>> exponent);
+  }
+
+  static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+    long subBucket = index - exponent * SUB_BUCKET_HALF_COUNT;
+    return ((subBucket + 1) << exponent) - 1;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.openloop;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.PoolAdapters;
+
+/**
+ * An open-loop load generator for the {@link PoolAdapter} pools.
+ *
+ * Claim/release cycles are scheduled at a fixed rate, spread evenly across the
+ * worker threads, and the latency of each cycle is measured from the time it
+ * was supposed to start. Each start time is computed from the start of the
+ * run, so the intervals between them do not accumulate rounding errors. A pool that stalls therefore gets charged for all the
+ * requests that queue up behind the stall, instead of simply issuing fewer
+ * requests like it would in a closed-loop JMH benchmark.
+ *
+ * Run it like this:
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar objectpoolbenchmark.openloop.OpenLoop \
+ *       StormpotBlazePool 1000000 4 30
+ * </pre>
+ */
+public class OpenLoop {
+  private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.err.println("Usage: OpenLoop <pool> <ops/s> <threads> <seconds> [poolSize] [warmup seconds] [output file]");
+      System.err.println("The pool is one of " + PoolAdapters.names());
+      System.exit(1);
+    }
+    String poolName = args[0];
+    long rate = Long.parseLong(args[1]);
+    int threads = Integer.parseInt(args[2]);
+    long seconds = Long.parseLong(args[3]);
+    int poolSize = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+    long warmupSeconds = args.length > 5 ? Long.parseLong(args[5]) : 5;
+    if (threads <= 0) {
+      System.err.println("The number of threads must be positive");
+      System.exit(1);
+    }
+    // Each thread can start at most one cycle per nanosecond.
+    long maxRate = TimeUnit.SECONDS.toNanos(1) * threads;
+    if (rate <= 0 || rate > maxRate) {
+      System.err.println("The rate must be between 1 and " + maxRate + " ops/s with " + threads + " threads");
+      System.exit(1);
+    }
+
+    PoolAdapter pool = PoolAdapters.create(poolName);
+    pool.create(poolSize);
+    LatencyHistogram histogram;
+    try {
+      histogram = run(pool, rate, threads,
+          TimeUnit.SECONDS.toNanos(warmupSeconds), TimeUnit.SECONDS.toNanos(seconds));
+    } finally {
+      pool.shutdown();
+    }
+
+    String description = String.format("# %s, %d ops/s, %d threads, %d s, poolSize = %d",
+        poolName, rate, threads, seconds, poolSize);
+    System.out.println(description);
+    histogram.print(System.out);
+    if (args.length > 6) {
+      try (PrintStream out = new PrintStream(new FileOutputStream(args[6]))) {
+        out.println(description);
+        histogram.print(out);
+      }
+    }
+    System.exit(0);
+  }
+
+  static LatencyHistogram run(
+      PoolAdapter pool, long rate, int threads, long warmupNanos, long durationNanos) throws Exception {
+    double interval = (double) TimeUnit.SECONDS.toNanos(1) * threads / rate;
+    long startTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+    long recordFrom = startTime + warmupNanos;
+    long endTime = recordFrom + durationNanos;
+
+    Worker[] workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      long offset = TimeUnit.SECONDS.toNanos(1) * i / rate;
+      workers[i] = new Worker(pool, startTime + offset, interval, recordFrom, endTime);
+      workers[i].setName("openloop-worker-" + i);
+      workers[i].start();
+    }
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (Worker worker : workers) {
+      worker.join();
+      if (worker.failure != null) {
+        throw worker.failure;
+      }
+      histogram.add(worker.histogram);
+    }
+    return histogram;
+  }
+
+  private static class Worker extends Thread {
+    private final PoolAdapter pool;
+    private final long firstStart;
+    private final double interval;
+    private final long recordFrom;
+    private final long endTime;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private volatile Exception failure;
+
+    Worker(PoolAdapter pool, long firstStart, double interval, long recordFrom, long endTime) {
+      this.pool = pool;
+      this.firstStart = firstStart;
+      this.interval = interval;
+      this.recordFrom = recordFrom;
+      this.endTime = endTime;
+    }
+
+    @Override
+    public void run() {
+      try {
+        long intendedStart;
+        for (long cycle = 0; (intendedStart = firstStart + (long) (cycle * interval)) < endTime; cycle++) {
+          awaitStart(intendedStart);
+          Object obj = pool.claim();
+          Costs.expendUsage();
+          pool.release(obj);
+          if (intendedStart >= recordFrom) {
+            histogram.record(System.nanoTime() - intendedStart);
+          }
+        }
+      } catch (Exception e) {
+        failure = e;
+      }
+    }
+  }
+
+  /**
+   * Wait until the given time, by parking until just before it, and spinning
+   * the rest of the way.
+   */
+  static void awaitStart(long intendedStart) {
+    long remaining;
+    while ((remaining = intendedStart - System.nanoTime()) > 0) {
+      if (remaining > SPIN_THRESHOLD_NANOS) {
+        LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.openloop;
+
+import java.nio.file.Paths;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes up a trace for the {@link TraceReplay}, where every thread claims
+ * objects at random times, at the given average rate across all threads, and
+ * holds them for random times, with the given mean. Both are exponentially
+ * distributed, but a thread never claims an object before it has released its
+ * previous one.
+ *
+ * Run it like this:
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar objectpoolbenchmark.openloop.SynthesizeTrace \
+ *       claims.trace 100000 50 8 30
+ * </pre>
+ */
+public class SynthesizeTrace {
+  public static void main(String[] args) throws Exception {
+    if (args.length < 5) {
+      System.err.println("Usage: SynthesizeTrace <trace file> <claims/s> <mean hold us> <threads> <seconds> [seed]");
+      System.exit(1);
+    }
+    double rate = Double.parseDouble(args[1]);
+    double meanHoldNanos = TimeUnit.MICROSECONDS.toNanos(Long.parseLong(args[2]));
+    int threads = Integer.parseInt(args[3]);
+    long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(args[4]));
+    Random random = new Random(args.length > 5 ? Long.parseLong(args[5]) : 1);
+    double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) * threads / rate;
+
+    // The next claim of every thread, as {claim time, thread}, in claim order.
+    PriorityQueue<long[]> claims = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    for (int thread = 0; thread < threads; thread++) {
+      claims.add(new long[] {exponential(random, meanIntervalNanos), thread});
+    }
+    long records = 0;
+    try (TraceWriter writer = new TraceWriter(Paths.get(args[0]))) {
+      long[] claim;
+      while ((claim = claims.poll())[0] < durationNanos) {
+        long holdNanos = exponential(random, meanHoldNanos);
+        writer.write(claim[0], holdNanos, (int) claim[1]);
+        records++;
+        claim[0] = Math.max(claim[0] + exponential(random, meanIntervalNanos), claim[0] + holdNanos);
+        claims.add(claim);
+      }
+    }
+    System.out.printf("Wrote %d records for %d threads to %s%n", records, threads, args[0]);
+  }
+
+  private static long exponential(Random random, double mean) {
+    return Math.round(-mean * Math.log(1 - random.nextDouble()));
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.openloop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static objectpoolbenchmark.openloop.TraceWriter.HEADER_SIZE;
+import static objectpoolbenchmark.openloop.TraceWriter.RECORD_SIZE;
+
+/**
+ * Streams the records of a trace written by the {@link TraceWriter}.
+ *
+ * The trace is memory-mapped a window of {@value #WINDOW_RECORDS} records at
+ * a time, so traces of any size can be read without copying them onto the
+ * heap.
+ * The fields of the current record are read with the accessors after
+ * {@link #next()} has returned true.
+ */
+public class TraceReader implements Closeable {
+  private static final int WINDOW_RECORDS = 1 << 22;
+
+  private final FileChannel channel;
+  private final int threads;
+  private final long records;
+  private MappedByteBuffer window;
+  private long index;
+  private long claimNanos;
+  private long holdNanos;
+  private int thread;
+
+  public TraceReader(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          break;
+        }
+      }
+      header.flip();
+      if (header.remaining() < HEADER_SIZE || header.getLong() != TraceWriter.MAGIC) {
+        throw new IOException(file + " is not a trace");
+      }
+      int version = header.getInt();
+      if (version != TraceWriter.VERSION) {
+        throw new IOException(file + " has trace format version " + version
+            + ", expected " + TraceWriter.VERSION);
+      }
+      threads = header.getInt();
+      records = header.getLong();
+      if (channel.size() < HEADER_SIZE + records * RECORD_SIZE) {
+        throw new IOException(file + " is truncated, expected " + records + " records");
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * The number of threads in the trace, which is one more than the highest
+   * thread id.
+   */
+  public int threads() {
+    return threads;
+  }
+
+  public long records() {
+    return records;
+  }
+
+  /**
+   * Move to the next record, or return false if there are no more records.
+   */
+  public boolean next() throws IOException {
+    if (index == records) {
+      return false;
+    }
+    if (window == null || !window.hasRemaining()) {
+      long size = Math.min(WINDOW_RECORDS, records - index) * RECORD_SIZE;
+      window = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + index * RECORD_SIZE, size);
+    }
+    claimNanos = window.getLong();
+    holdNanos = window.getInt() * 1000L;
+    thread = window.getInt();
+    index++;
+    return true;
+  }
+
+  /**
+   * When the object was claimed, in nanoseconds since the start of the trace.
+   */
+  public long claimNanos() {
+    return claimNanos;
+  }
+
+  public long holdNanos() {
+    return holdNanos;
+  }
+
+  public int thread() {
+    return thread;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+}
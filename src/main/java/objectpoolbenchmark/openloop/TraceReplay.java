@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.openloop;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.PoolAdapters;
+
+/**
+ * Replays a trace of claims against one of the {@link PoolAdapter} pools.
+ *
+ * Traces are recorded from a service with the {@link TraceWriter}, or made up
+ * with the {@link SynthesizeTrace}. Every thread in the trace gets a thread of
+ * its own, which claims an object at the recorded time, holds it for the
+ * recorded time, and releases it again. Like the {@link OpenLoop}, the latency
+ * of each claim is measured from the time it was recorded at, so a claim that
+ * starts late, because the previous claim of its thread had to wait for the
+ * pool, is charged for that wait as well.
+ *
+ * The trace is read once, by the thread that runs the replay, which hands
+ * each record to the thread it belongs to through a queue of up to
+ * {@value #QUEUE_RECORDS} records. The reader only holds the other threads
+ * up when one of them falls that many claims behind.
+ *
+ * Meanwhile, the number of objects in use, and the number of threads waiting
+ * in a claim, are sampled every {@value #SAMPLE_MICROS} microseconds, and
+ * their mean and maximum per {@value #REPORT_MILLIS} ms are printed along with
+ * the latency percentiles.
+ *
+ * Run it like this:
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar objectpoolbenchmark.openloop.TraceReplay \
+ *       StormpotBlazePool claims.trace
+ * </pre>
+ */
+public class TraceReplay {
+  private static final long SAMPLE_MICROS = 100;
+  private static final long REPORT_MILLIS = 1000;
+  private static final int QUEUE_RECORDS = 1024;
+  private static final long DISPATCH_WAIT_MILLIS = 10;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("Usage: TraceReplay <pool> <trace file> [poolSize] [warmup seconds] [output file]");
+      System.err.println("The pool is one of " + PoolAdapters.names());
+      System.exit(1);
+    }
+    String poolName = args[0];
+    Path trace = Paths.get(args[1]);
+    int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    long warmupSeconds = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+    int threads;
+    long records;
+    try (TraceReader reader = new TraceReader(trace)) {
+      threads = reader.threads();
+      records = reader.records();
+    }
+
+    PoolAdapter pool = PoolAdapters.create(poolName);
+    pool.create(poolSize);
+    Occupancy occupancy = new Occupancy();
+    LatencyHistogram histogram;
+    try {
+      histogram = run(pool, trace, threads, TimeUnit.SECONDS.toNanos(warmupSeconds), occupancy);
+    } finally {
+      pool.shutdown();
+    }
+
+    String description = String.format("# %s, %s, %d records, %d threads, poolSize = %d",
+        poolName, trace.getFileName(), records, threads, poolSize);
+    System.out.println(description);
+    histogram.print(System.out);
+    occupancy.print(System.out);
+    if (args.length > 4) {
+      try (PrintStream out = new PrintStream(new FileOutputStream(args[4]))) {
+        out.println(description);
+        histogram.print(out);
+        occupancy.print(out);
+      }
+    }
+    System.exit(0);
+  }
+
+  static LatencyHistogram run(
+      PoolAdapter pool, Path trace, int threads, long warmupNanos, Occupancy occupancy) throws Exception {
+    long startTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+
+    Worker[] workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker(pool, startTime, startTime + warmupNanos, occupancy);
+      workers[i].setName("replay-worker-" + i);
+      workers[i].start();
+    }
+    occupancy.startSampling(startTime);
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    try {
+      try (TraceReader reader = new TraceReader(trace)) {
+        while (reader.next()) {
+          workers[reader.thread()].dispatch(new Record(reader.claimNanos(), reader.holdNanos()));
+        }
+      }
+      for (Worker worker : workers) {
+        worker.dispatch(Record.END);
+      }
+      for (Worker worker : workers) {
+        worker.join();
+        if (worker.failure != null) {
+          throw worker.failure;
+        }
+        histogram.add(worker.histogram);
+      }
+    } finally {
+      occupancy.stopSampling();
+    }
+    return histogram;
+  }
+
+  private static final class Record {
+    static final Record END = new Record(0, 0);
+
+    final long claimNanos;
+    final long holdNanos;
+
+    Record(long claimNanos, long holdNanos) {
+      this.claimNanos = claimNanos;
+      this.holdNanos = holdNanos;
+    }
+  }
+
+  /**
+   * Replays the records of one thread of the trace, as they are dispatched to
+   * it, so the workers never wait for each other, only for the pool.
+   */
+  private static class Worker extends Thread {
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_RECORDS);
+    private final PoolAdapter pool;
+    private final long startTime;
+    private final long recordFrom;
+    private final Occupancy occupancy;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private volatile Exception failure;
+
+    Worker(PoolAdapter pool, long startTime, long recordFrom, Occupancy occupancy) {
+      setDaemon(true);
+      this.pool = pool;
+      this.startTime = startTime;
+      this.recordFrom = recordFrom;
+      this.occupancy = occupancy;
+    }
+
+    /**
+     * Queue the record for this worker, or throw the exception that the worker
+     * failed with, if it is no longer taking records.
+     */
+    void dispatch(Record record) throws Exception {
+      while (!queue.offer(record, DISPATCH_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (failure != null) {
+          throw failure;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        Record record;
+        while ((record = queue.take()) != Record.END) {
+          long intendedStart = startTime + record.claimNanos;
+          OpenLoop.awaitStart(intendedStart);
+          occupancy.waiting.incrementAndGet();
+          Object obj = pool.claim();
+          long claimed = System.nanoTime();
+          occupancy.waiting.decrementAndGet();
+          occupancy.inUse.incrementAndGet();
+          if (intendedStart >= recordFrom) {
+            histogram.record(claimed - intendedStart);
+          }
+          OpenLoop.awaitStart(claimed + record.holdNanos);
+          occupancy.inUse.decrementAndGet();
+          pool.release(obj);
+        }
+      } catch (Exception e) {
+        failure = e;
+      }
+    }
+  }
+
+  /**
+   * Samples the objects in use and the waiting threads on a thread of its own.
+   */
+  static class Occupancy extends Thread {
+    final AtomicInteger inUse = new AtomicInteger();
+    final AtomicInteger waiting = new AtomicInteger();
+    private final List<long[]> intervals = new ArrayList<>();
+    private volatile long startTime;
+    private volatile boolean stopped;
+
+    Occupancy() {
+      super("replay-occupancy");
+      setDaemon(true);
+    }
+
+    void startSampling(long startTime) {
+      this.startTime = startTime;
+      start();
+    }
+
+    void stopSampling() throws InterruptedException {
+      stopped = true;
+      join();
+    }
+
+    @Override
+    public void run() {
+      OpenLoop.awaitStart(startTime);
+      long intervalNanos = TimeUnit.MILLISECONDS.toNanos(REPORT_MILLIS);
+      long intervalEnd = startTime + intervalNanos;
+      long samples = 0;
+      long inUseSum = 0;
+      long inUseMax = 0;
+      long waitingSum = 0;
+      long waitingMax = 0;
+      while (!stopped) {
+        int inUseNow = inUse.get();
+        int waitingNow = waiting.get();
+        samples++;
+        inUseSum += inUseNow;
+        inUseMax = Math.max(inUseMax, inUseNow);
+        waitingSum += waitingNow;
+        waitingMax = Math.max(waitingMax, waitingNow);
+        if (System.nanoTime() - intervalEnd >= 0) {
+          intervals.add(new long[] {samples, inUseSum, inUseMax, waitingSum, waitingMax});
+          intervalEnd += intervalNanos;
+          samples = inUseSum = inUseMax = waitingSum = waitingMax = 0;
+        }
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(SAMPLE_MICROS));
+      }
+      if (samples > 0) {
+        intervals.add(new long[] {samples, inUseSum, inUseMax, waitingSum, waitingMax});
+      }
+    }
+
+    /**
+     * Print the occupancy per interval. Only call after {@link #stopSampling()}.
+     */
+    void print(PrintStream out) {
+      out.printf("%n%10s %12s %12s %12s %12s%n%n", "Second", "InUse(mean)", "InUse(max)", "Wait(mean)", "Wait(max)");
+      for (int i = 0; i < intervals.size(); i++) {
+        long[] interval = intervals.get(i);
+        double samples = interval[0];
+        out.printf("%10.1f %12.2f %12d %12.2f %12d%n",
+            (i + 1) * REPORT_MILLIS / 1000.0,
+            interval[1] / samples, interval[2], interval[3] / samples, interval[4]);
+      }
+    }
+  }
+}
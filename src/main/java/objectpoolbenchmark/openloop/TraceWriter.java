@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.openloop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a trace of claims for the {@link TraceReplay}, in the format that the
+ * {@link TraceReader} reads.
+ *
+ * A trace starts with a header of {@value #HEADER_SIZE} bytes: the magic
+ * {@code POOLTRC1}, the format version, the number of threads, and the number
+ * of records. Then follow the records of {@value #RECORD_SIZE} bytes each: the
+ * claim time in nanoseconds since the start of the trace, the time the object
+ * was held in microseconds, and the id of the thread that claimed it, counting
+ * from zero. Everything is big-endian.
+ *
+ * The records of each thread must be in the order they were claimed, and the
+ * records should be in the order they were claimed overall. The replay reads
+ * the trace once, and hands the records to the replaying threads through
+ * bounded queues, so records that are far out of order fill up the queue of
+ * one thread, and hold up the claims of all the others. The header is written
+ * when the trace is closed, so the counts need not be known up front.
+ */
+public class TraceWriter implements Closeable {
+  static final long MAGIC = 0x504F4F4C54524331L; // "POOLTRC1"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 24;
+  static final int RECORD_SIZE = 16;
+  private static final int BUFFER_RECORDS = 4096;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+  private long records;
+  private int threads;
+
+  public TraceWriter(Path file) throws IOException {
+    channel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    channel.position(HEADER_SIZE);
+  }
+
+  /**
+   * Add a claim to the trace. Can be called from any thread.
+   */
+  public synchronized void write(long claimNanos, long holdNanos, int thread) throws IOException {
+    if (claimNanos < 0 || holdNanos < 0 || thread < 0) {
+      throw new IllegalArgumentException("Negative claim time, hold time or thread id");
+    }
+    if (!buffer.hasRemaining()) {
+      flush();
+    }
+    buffer.putLong(claimNanos);
+    buffer.putInt((int) Math.min(Integer.MAX_VALUE, holdNanos / 1000));
+    buffer.putInt(thread);
+    records++;
+    threads = Math.max(threads, thread + 1);
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+      buffer.putLong(MAGIC).putInt(VERSION).putInt(threads).putLong(records).flip();
+      long position = 0;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.profile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+import org.openjdk.jmh.runner.IterationType;
+
+/**
+ * Records the measurement iterations of every fork with Java Flight Recorder,
+ * and reports where the benchmark threads blocked on monitors, where they
+ * parked, and where they allocated.
+ *
+ * The recording is started and stopped from inside the benchmark JVM, with
+ * the JFR API, so no agent or command line tool is needed. The
+ * {@code jdk.JavaMonitorEnter} and {@code jdk.ThreadPark} events are recorded
+ * without a threshold, so even short waits are counted, and allocations are
+ * recorded with {@code jdk.ObjectAllocationSample}, or with the TLAB
+ * allocation events on JDKs older than 16, that do not have it. Only the
+ * events of the JMH worker threads are counted, not those of the background
+ * threads of the pools.
+ *
+ * The monitor and park time and counts per operation are reported as
+ * secondary results, and for every fork, the recording and a summary of the
+ * top contended monitors, park sites and allocation sites are written to the
+ * given directory, which should be the directory of the JSON results:
+ *
+ * <pre>
+ *   -prof objectpoolbenchmark.profile.JfrContentionProfiler:dir=results/my-run;top=20
+ * </pre>
+ *
+ * The sites are the innermost stack frames outside the JDK, so they point at
+ * the pool code that blocked, rather than at {@code LockSupport.park}.
+ */
+public class JfrContentionProfiler implements ExternalProfiler, InternalProfiler {
+  private static final String RECORDING_PROPERTY = "jfr.contention.recording";
+  private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+  private static final String THREAD_PARK = "jdk.ThreadPark";
+  private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+  private static final String ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+  private static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+  private static final String WORKER_THREAD = "-jmh-worker-";
+
+  private final Path directory;
+  private final int top;
+  private final Map<String, Integer> forks = new HashMap<>();
+  private File recordingFile;
+
+  // In the benchmark JVM.
+  private Recording recording;
+  private int measurementIterations;
+
+  public JfrContentionProfiler() throws ProfilerException {
+    this("");
+  }
+
+  public JfrContentionProfiler(String options) throws ProfilerException {
+    Path directory = Paths.get("jfr");
+    int top = 10;
+    for (String option : options.split(";")) {
+      if (option.trim().isEmpty()) {
+        continue;
+      }
+      String[] keyValue = option.split("=", 2);
+      if (keyValue.length != 2) {
+        throw new ProfilerException("Expected key=value in '" + option + "'");
+      }
+      switch (keyValue[0].trim()) {
+        case "dir":
+          directory = Paths.get(keyValue[1].trim());
+          break;
+        case "top":
+          try {
+            top = Integer.parseInt(keyValue[1].trim());
+          } catch (NumberFormatException e) {
+            throw new ProfilerException("Bad number in '" + option + "'");
+          }
+          break;
+        default:
+          throw new ProfilerException("Unknown option '" + option + "', expected dir or top");
+      }
+    }
+    this.directory = directory;
+    this.top = top;
+  }
+
+  @Override
+  public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> addJVMOptions(BenchmarkParams params) {
+    try {
+      recordingFile = File.createTempFile("jmh-contention", ".jfr");
+      recordingFile.deleteOnExit();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot create a file for the recording", e);
+    }
+    return Collections.singletonList("-D" + RECORDING_PROPERTY + "=" + recordingFile.getPath());
+  }
+
+  @Override
+  public void beforeTrial(BenchmarkParams benchmarkParams) {
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    if (iterationParams.getType() != IterationType.MEASUREMENT || recording != null) {
+      return;
+    }
+    recording = new Recording();
+    recording.enable(MONITOR_ENTER).withThreshold(Duration.ZERO).withStackTrace();
+    recording.enable(THREAD_PARK).withThreshold(Duration.ZERO).withStackTrace();
+    if (hasEventType(ALLOCATION_SAMPLE)) {
+      recording.enable(ALLOCATION_SAMPLE).withStackTrace();
+    } else {
+      recording.enable(ALLOCATION_IN_NEW_TLAB).withStackTrace();
+      recording.enable(ALLOCATION_OUTSIDE_TLAB).withStackTrace();
+    }
+    recording.start();
+  }
+
+  private static boolean hasEventType(String name) {
+    for (EventType type : FlightRecorder.getFlightRecorder().getEventTypes()) {
+      if (type.getName().equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    if (iterationParams.getType() == IterationType.MEASUREMENT
+        && ++measurementIterations == iterationParams.getCount()) {
+      recording.stop();
+      try {
+        recording.dump(Paths.get(System.getProperty(RECORDING_PROPERTY)));
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot write the recording", e);
+      } finally {
+        recording.close();
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<? extends Result> afterTrial(BenchmarkResult br, long pid, File stdOut, File stdErr) {
+    if (recordingFile == null || recordingFile.length() == 0) {
+      return Collections.emptyList();
+    }
+    Summary summary = new Summary();
+    try {
+      try (RecordingFile events = new RecordingFile(recordingFile.toPath())) {
+        while (events.hasMoreEvents()) {
+          summary.add(events.readEvent());
+        }
+      }
+      String name = forkName(br.getParams());
+      Files.createDirectories(directory);
+      Files.move(recordingFile.toPath(), directory.resolve(name + ".jfr"), StandardCopyOption.REPLACE_EXISTING);
+      double ops = Math.max(1, br.getMetadata().getMeasurementOps());
+      try (PrintStream out = new PrintStream(directory.resolve(name + ".txt").toFile(), "UTF-8")) {
+        summary.print(out, ops, top);
+      }
+      List<Result> results = new ArrayList<>();
+      results.add(new ScalarResult("jfr.monitor.time", summary.monitorNanos / ops, "ns/op", AggregationPolicy.AVG));
+      results.add(new ScalarResult("jfr.monitor.count", summary.monitorCount / ops, "#/op", AggregationPolicy.AVG));
+      results.add(new ScalarResult("jfr.park.time", summary.parkNanos / ops, "ns/op", AggregationPolicy.AVG));
+      results.add(new ScalarResult("jfr.park.count", summary.parkCount / ops, "#/op", AggregationPolicy.AVG));
+      return results;
+    } catch (IOException e) {
+      System.err.println("Cannot summarize the recording " + recordingFile + ": " + e);
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * The benchmark, parameters and threads, and the number of the fork, like
+   * {@code ClaimRelease.cycle-pool=EasyPool-poolSize=10-8-threads-fork2}.
+   */
+  private String forkName(BenchmarkParams params) {
+    String benchmark = params.getBenchmark();
+    StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+    for (String key : params.getParamsKeys()) {
+      name.append('-').append(key).append('=').append(params.getParam(key));
+    }
+    name.append('-').append(params.getThreads()).append("-threads");
+    String prefix = name.toString().replaceAll("[^\\w.=+@-]", "_");
+    int fork = forks.merge(prefix, 1, Integer::sum);
+    return prefix + "-fork" + fork;
+  }
+
+  @Override
+  public boolean allowPrintOut() {
+    return true;
+  }
+
+  @Override
+  public boolean allowPrintErr() {
+    return true;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Contended monitors, parking and allocation sites of the benchmark threads, from Java Flight Recorder";
+  }
+
+  private static final class Summary {
+    long monitorNanos;
+    long monitorCount;
+    long parkNanos;
+    long parkCount;
+    long allocatedBytes;
+    final Map<String, long[]> monitors = new HashMap<>();
+    final Map<String, long[]> parks = new HashMap<>();
+    final Map<String, long[]> allocations = new HashMap<>();
+
+    void add(RecordedEvent event) {
+      RecordedThread thread = event.getThread();
+      if (thread == null || thread.getJavaName() == null || !thread.getJavaName().contains(WORKER_THREAD)) {
+        return;
+      }
+      String site = site(event);
+      if (site == null) {
+        return;
+      }
+      switch (event.getEventType().getName()) {
+        case MONITOR_ENTER: {
+          long nanos = event.getDuration().toNanos();
+          monitorNanos += nanos;
+          monitorCount++;
+          count(monitors, className(event, "monitorClass") + " at " + site, nanos);
+          break;
+        }
+        case THREAD_PARK: {
+          long nanos = event.getDuration().toNanos();
+          parkNanos += nanos;
+          parkCount++;
+          count(parks, className(event, "parkedClass") + " at " + site, nanos);
+          break;
+        }
+        case ALLOCATION_SAMPLE: {
+          long bytes = event.getLong("weight");
+          allocatedBytes += bytes;
+          count(allocations, className(event, "objectClass") + " at " + topFrame(event), bytes);
+          break;
+        }
+        case ALLOCATION_IN_NEW_TLAB: {
+          long bytes = event.getLong("tlabSize");
+          allocatedBytes += bytes;
+          count(allocations, className(event, "objectClass") + " at " + topFrame(event), bytes);
+          break;
+        }
+        case ALLOCATION_OUTSIDE_TLAB: {
+          long bytes = event.getLong("allocationSize");
+          allocatedBytes += bytes;
+          count(allocations, className(event, "objectClass") + " at " + topFrame(event), bytes);
+          break;
+        }
+        default:
+          break;
+      }
+    }
+
+    private static void count(Map<String, long[]> sites, String site, long amount) {
+      long[] counts = sites.computeIfAbsent(site, s -> new long[2]);
+      counts[0] += amount;
+      counts[1]++;
+    }
+
+    private static String className(RecordedEvent event, String field) {
+      RecordedClass recordedClass = event.hasField(field) ? event.getClass(field) : null;
+      return recordedClass == null ? "(unknown)" : recordedClass.getName();
+    }
+
+    /**
+     * The innermost frame outside the JDK, or null if the event did not happen
+     * in the benchmark, like the waits of the JMH infrastructure between
+     * iterations, and of the idle worker threads.
+     */
+    private static String site(RecordedEvent event) {
+      RecordedStackTrace stackTrace = event.getStackTrace();
+      if (stackTrace == null) {
+        return "(no stack trace)";
+      }
+      for (RecordedFrame frame : stackTrace.getFrames()) {
+        String type = frame.getMethod().getType().getName();
+        if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+          return type.startsWith("org.openjdk.jmh.runner.") ? null : frame(frame);
+        }
+      }
+      return null;
+    }
+
+    private static String topFrame(RecordedEvent event) {
+      RecordedStackTrace stackTrace = event.getStackTrace();
+      if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+        return "(no stack trace)";
+      }
+      return frame(stackTrace.getFrames().get(0));
+    }
+
+    private static String frame(RecordedFrame frame) {
+      return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+          + ":" + frame.getLineNumber();
+    }
+
+    void print(PrintStream out, double ops, int top) {
+      out.printf("Monitor enter: %.1f ns/op, %.3g/op%n", monitorNanos / ops, monitorCount / ops);
+      out.printf("Thread park:   %.1f ns/op, %.3g/op%n", parkNanos / ops, parkCount / ops);
+      out.printf("Allocation:    %.1f B/op%n", allocatedBytes / ops);
+      printTop(out, "Top contended monitors", "ns/op", monitors, ops, top);
+      printTop(out, "Top park sites", "ns/op", parks, ops, top);
+      printTop(out, "Top allocation sites", "B/op", allocations, ops, top);
+    }
+
+    private static void printTop(PrintStream out, String title, String unit, Map<String, long[]> sites,
+                                 double ops, int top) {
+      out.printf("%n%s:%n%n%14s %12s  %s%n", title, unit, "events/op", "site");
+      List<Map.Entry<String, long[]>> sorted = new ArrayList<>(sites.entrySet());
+      sorted.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+      for (Map.Entry<String, long[]> site : sorted.subList(0, Math.min(top, sorted.size()))) {
+        long[] counts = site.getValue();
+        out.printf("%14.1f %12.3g  %s%n", counts[0] / ops, counts[1] / ops, site.getKey());
+      }
+    }
+  }
+}
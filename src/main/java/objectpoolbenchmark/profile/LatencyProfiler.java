@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.profile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import objectpoolbenchmark.openloop.LatencyHistogram;
+import objectpoolbenchmark.suite.Latencies;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the percentiles of the latencies that the benchmark published to
+ * the {@link Latencies} during each iteration, as {@code latency.<name>.p50},
+ * {@code p99}, {@code p99.99} and {@code max}, in nanoseconds. The percentiles
+ * are averaged across iterations and forks, and the maximum is the maximum.
+ *
+ * Use it with {@code -prof objectpoolbenchmark.profile.LatencyProfiler}.
+ */
+public class LatencyProfiler implements InternalProfiler {
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    Latencies.drain();
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    List<Result> results = new ArrayList<>();
+    for (Map.Entry<String, LatencyHistogram> entry : Latencies.drain().entrySet()) {
+      String prefix = "latency." + entry.getKey();
+      LatencyHistogram histogram = entry.getValue();
+      if (histogram.getTotalCount() == 0) {
+        continue;
+      }
+      results.add(new ScalarResult(prefix + ".p50", histogram.getValueAtPercentile(50), "ns",
+          AggregationPolicy.AVG));
+      results.add(new ScalarResult(prefix + ".p99", histogram.getValueAtPercentile(99), "ns",
+          AggregationPolicy.AVG));
+      results.add(new ScalarResult(prefix + ".p99.99", histogram.getValueAtPercentile(99.99), "ns",
+          AggregationPolicy.AVG));
+      results.add(new ScalarResult(prefix + ".max", histogram.getMaxValue(), "ns",
+          AggregationPolicy.MAX));
+    }
+    return results;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Latency percentiles recorded by the benchmark itself";
+  }
+}
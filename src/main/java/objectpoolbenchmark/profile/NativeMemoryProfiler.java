@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.profile;
+
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the native memory footprint of the benchmark JVM at the end of every
+ * iteration: the committed memory of Native Memory Tracking in total, and in
+ * the "Other" category, which is where direct buffers are allocated, and the
+ * memory and count of the direct buffers themselves.
+ *
+ * Use it with {@code -prof objectpoolbenchmark.profile.NativeMemoryProfiler}.
+ * The forked benchmark JVM is started with NMT in summary mode, which adds
+ * some overhead to native allocations, so compare the throughput with runs
+ * without this profiler.
+ */
+public class NativeMemoryProfiler implements ExternalProfiler, InternalProfiler {
+  private static final Pattern TOTAL = Pattern.compile("Total: reserved=\\d+KB, committed=(\\d+)KB");
+  private static final Pattern OTHER = Pattern.compile("-\\s+Other \\(reserved=\\d+KB, committed=(\\d+)KB\\)");
+
+  @Override
+  public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> addJVMOptions(BenchmarkParams params) {
+    return Collections.singletonList("-XX:NativeMemoryTracking=summary");
+  }
+
+  @Override
+  public void beforeTrial(BenchmarkParams benchmarkParams) {
+  }
+
+  @Override
+  public Collection<? extends Result> afterTrial(BenchmarkResult br, long pid, File stdOut, File stdErr) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    List<Result> results = new ArrayList<>();
+    String summary = nativeMemorySummary();
+    if (summary != null) {
+      Matcher total = TOTAL.matcher(summary);
+      if (total.find()) {
+        results.add(new ScalarResult("nmt.committed.total", Long.parseLong(total.group(1)), "KB",
+            AggregationPolicy.AVG));
+      }
+      Matcher other = OTHER.matcher(summary);
+      if (other.find()) {
+        results.add(new ScalarResult("nmt.committed.other", Long.parseLong(other.group(1)), "KB",
+            AggregationPolicy.AVG));
+      }
+    }
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals("direct")) {
+        results.add(new ScalarResult("direct.buffers.used", pool.getMemoryUsed() / 1024.0, "KB",
+            AggregationPolicy.AVG));
+        results.add(new ScalarResult("direct.buffers.count", pool.getCount(), "#",
+            AggregationPolicy.AVG));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Ask the JVM for its NMT summary, like {@code jcmd <pid> VM.native_memory summary}
+   * does, or return null if that is not possible.
+   */
+  private static String nativeMemorySummary() {
+    try {
+      return (String) ManagementFactory.getPlatformMBeanServer().invoke(
+          new ObjectName("com.sun.management:type=DiagnosticCommand"),
+          "vmNativeMemory",
+          new Object[] {new String[] {"summary"}},
+          new String[] {String[].class.getName()});
+    } catch (JMException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public boolean allowPrintOut() {
+    return true;
+  }
+
+  @Override
+  public boolean allowPrintErr() {
+    return true;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Native memory footprint, from Native Memory Tracking and the direct buffer pool";
+  }
+}
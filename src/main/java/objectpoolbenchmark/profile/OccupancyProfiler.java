@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.profile;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import objectpoolbenchmark.suite.Occupancy;
+import objectpoolbenchmark.suite.OccupancySampler;
+import objectpoolbenchmark.suite.PoolAdapters;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Samples the {@link Occupancy} of the pool of the benchmark every
+ * {@value #SAMPLE_INTERVAL_MICROS} microseconds, on a thread of its own, and
+ * reports the objects claimed and idle, the threads waiting, and the objects
+ * allocated and deallocated, for every iteration. Each iteration is a point in
+ * the time series of the secondary metrics in the JSON results, so use short
+ * iterations, like {@code -r 100ms}, for a finer series.
+ *
+ * Use it with {@code -prof objectpoolbenchmark.profile.OccupancyProfiler}.
+ * Only the metrics that the pool library exposes are reported, and the pools
+ * that only keep some metrics when asked to, such as Stormpot, are asked to.
+ * The {@code occupancy.sampleCost} is the time it took to take one sample, and
+ * the {@link objectpoolbenchmark.suite.OccupancySampling} benchmark measures
+ * what the sampling costs the benchmark threads.
+ */
+public class OccupancyProfiler implements ExternalProfiler, InternalProfiler {
+  private static final long SAMPLE_INTERVAL_MICROS = 1000;
+
+  private OccupancySampler sampler;
+
+  @Override
+  public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> addJVMOptions(BenchmarkParams params) {
+    return Collections.singletonList("-D" + Occupancy.METRICS_PROPERTY + "=true");
+  }
+
+  @Override
+  public void beforeTrial(BenchmarkParams benchmarkParams) {
+  }
+
+  @Override
+  public Collection<? extends Result> afterTrial(BenchmarkResult br, long pid, File stdOut, File stdErr) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    sampler = new OccupancySampler(PoolAdapters::latest, TimeUnit.MICROSECONDS.toNanos(SAMPLE_INTERVAL_MICROS));
+    sampler.start();
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    try {
+      sampler.shutdown();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    OccupancySampler.Summary summary = sampler.summarize();
+    List<Result> results = new ArrayList<>();
+    if (summary.samples == 0) {
+      return results;
+    }
+    results.add(new ScalarResult("occupancy.samples", summary.samples, "#", AggregationPolicy.AVG));
+    results.add(new ScalarResult("occupancy.sampleCost", summary.sampleNanos, "ns", AggregationPolicy.AVG));
+    if (!Double.isNaN(summary.claimedMean)) {
+      results.add(new ScalarResult("occupancy.claimed.mean", summary.claimedMean, "#", AggregationPolicy.AVG));
+      results.add(new ScalarResult("occupancy.claimed.max", summary.claimedMax, "#", AggregationPolicy.MAX));
+    }
+    if (!Double.isNaN(summary.idleMean)) {
+      results.add(new ScalarResult("occupancy.idle.mean", summary.idleMean, "#", AggregationPolicy.AVG));
+    }
+    if (!Double.isNaN(summary.waitingMean)) {
+      results.add(new ScalarResult("occupancy.waiting.mean", summary.waitingMean, "#", AggregationPolicy.AVG));
+      results.add(new ScalarResult("occupancy.waiting.max", summary.waitingMax, "#", AggregationPolicy.MAX));
+    }
+    if (summary.allocations != -1) {
+      results.add(new ScalarResult("occupancy.allocations", summary.allocations, "#", AggregationPolicy.AVG));
+    }
+    if (summary.deallocations != -1) {
+      results.add(new ScalarResult("occupancy.deallocations", summary.deallocations, "#", AggregationPolicy.AVG));
+    }
+    return results;
+  }
+
+  @Override
+  public boolean allowPrintOut() {
+    return true;
+  }
+
+  @Override
+  public boolean allowPrintErr() {
+    return true;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Pool occupancy and waiting threads, sampled from the metrics of the pool library";
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.profile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Runs the forked benchmark JVM under {@code perf c2c record}, and reports the
+ * sampled cache-to-cache transfers, the HITM loads that hit a modified cache
+ * line in another core, per benchmark operation. Linux only, and the CPU must
+ * support the memory load sampling events that perf c2c relies on.
+ *
+ * Use it with {@code -prof objectpoolbenchmark.profile.PerfC2CProfiler}.
+ * Recording starts after the estimated warmup time, like the JMH
+ * {@code perfnorm} profiler, but the counts are samples rather than exact
+ * event counts, so compare them between benchmarks rather than reading them as
+ * absolute numbers.
+ */
+public class PerfC2CProfiler implements ExternalProfiler {
+  private static final long JVM_STARTUP_MILLIS = 1000;
+  private static final Pattern STAT_LINE = Pattern.compile("^\\s*(.+?)\\s*:\\s*(\\d+)\\s*$");
+  private static final List<String> STATS = Arrays.asList(
+      "Load Local HITM",
+      "Load Remote HITM",
+      "Load L1D hit",
+      "Load LLC hit",
+      "Load LLC misses");
+
+  private final File perfData;
+
+  public PerfC2CProfiler() throws ProfilerException {
+    try {
+      perfData = File.createTempFile("jmh-perfc2c", ".data");
+      perfData.deleteOnExit();
+    } catch (IOException e) {
+      throw new ProfilerException(e);
+    }
+    List<String> output = run(Arrays.asList("perf", "c2c", "record", "-o", perfData.getPath(), "--", "true"));
+    if (output == null) {
+      throw new ProfilerException("perf c2c record does not work here: is perf installed, " +
+          "with access to the memory load sampling events?");
+    }
+  }
+
+  @Override
+  public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+    long warmupMillis = params.getWarmup().getCount() * params.getWarmup().getTime().convertTo(TimeUnit.MILLISECONDS);
+    return Arrays.asList(
+        "perf", "c2c", "record",
+        "-o", perfData.getPath(),
+        "--delay", String.valueOf(JVM_STARTUP_MILLIS + warmupMillis),
+        "--");
+  }
+
+  @Override
+  public Collection<String> addJVMOptions(BenchmarkParams params) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void beforeTrial(BenchmarkParams benchmarkParams) {
+  }
+
+  @Override
+  public Collection<? extends Result> afterTrial(BenchmarkResult br, long pid, File stdOut, File stdErr) {
+    List<String> output = run(Arrays.asList("perf", "c2c", "report", "-i", perfData.getPath(), "--stats"));
+    if (output == null) {
+      return Collections.emptyList();
+    }
+    double ops = Math.max(1, br.getMetadata().getMeasurementOps());
+    long localHitm = 0;
+    long remoteHitm = 0;
+    List<Result> results = new ArrayList<>();
+    for (String line : output) {
+      Matcher matcher = STAT_LINE.matcher(line);
+      if (matcher.matches() && STATS.contains(matcher.group(1))) {
+        String stat = matcher.group(1);
+        long count = Long.parseLong(matcher.group(2));
+        if (stat.equals("Load Local HITM")) {
+          localHitm = count;
+        } else if (stat.equals("Load Remote HITM")) {
+          remoteHitm = count;
+        }
+        String label = "perfc2c." + stat.toLowerCase().replace(' ', '.');
+        results.add(new ScalarResult(label, count / ops, "#/op", AggregationPolicy.AVG));
+      }
+    }
+    results.add(new ScalarResult("perfc2c.hitm", (localHitm + remoteHitm) / ops, "#/op", AggregationPolicy.AVG));
+    return results;
+  }
+
+  @Override
+  public boolean allowPrintOut() {
+    return true;
+  }
+
+  @Override
+  public boolean allowPrintErr() {
+    return false;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Sampled HITM cache-to-cache transfers per operation, with perf c2c";
+  }
+
+  /**
+   * Run the command, and return its output lines, or null if it failed.
+   */
+  private static List<String> run(List<String> command) {
+    try {
+      File output = File.createTempFile("jmh-perfc2c", ".out");
+      try {
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(output)
+            .start();
+        if (process.waitFor() != 0) {
+          return null;
+        }
+        return Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+      } finally {
+        output.delete();
+      }
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+}
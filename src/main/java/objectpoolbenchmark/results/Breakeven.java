@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Prints where pooling starts to beat allocation, from the JMH JSON results
+ * of the {@code PoolingBreakeven} benchmarks, such as the ones written by
+ * {@code breakevensuite.sh}:
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar objectpoolbenchmark.results.Breakeven \
+ *       results/2020-10-03-Linux-x86_64-8core-breakeven
+ * </pre>
+ *
+ * There is a table for every garbage collector, payload kind and thread
+ * count, with the time per cycle of allocation and of each pool, by payload
+ * size, in the average time mode. The breakeven is the smallest payload size from which the pool is
+ * faster than allocation, for that and all larger sizes.
+ */
+public class Breakeven {
+  private static final String BENCHMARK = "PoolingBreakeven.cycle";
+  private static final String ALLOCATION = "Allocation";
+  private static final Pattern COLLECTOR = Pattern.compile("-XX:\\+Use(\\w+)GC");
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: Breakeven <result directory or file>...");
+      System.exit(2);
+    }
+    Map<String, Table> tables = new TreeMap<>();
+    for (String arg : args) {
+      for (Path file : files(Paths.get(arg))) {
+        read(file, tables);
+      }
+    }
+    if (tables.isEmpty()) {
+      System.err.println("No " + BENCHMARK + " results found");
+      System.exit(1);
+    }
+    for (Map.Entry<String, Table> table : tables.entrySet()) {
+      System.out.println(table.getKey());
+      table.getValue().print(System.out);
+      System.out.println();
+    }
+  }
+
+  private static List<Path> files(Path path) throws IOException {
+    if (!Files.isDirectory(path)) {
+      return List.of(path);
+    }
+    try (Stream<Path> list = Files.list(path)) {
+      return list.filter(p -> p.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static void read(Path file, Map<String, Table> tables) throws IOException {
+    String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    for (Object element : list(Json.parse(text))) {
+      Map<String, Object> datapoint = map(element);
+      if (!((String) datapoint.get("benchmark")).endsWith("." + BENCHMARK)
+          || !"avgt".equals(datapoint.get("mode"))) {
+        continue;
+      }
+      Map<String, Object> params = map(datapoint.get("params"));
+      Map<String, Object> metric = map(datapoint.get("primaryMetric"));
+      int threads = (int) Json.number(datapoint.get("threads"));
+      String title = String.format("%s, %s payloads, %d thread%s, %s:",
+          collector(datapoint), params.get("payload"), threads, threads == 1 ? "" : "s",
+          metric.get("scoreUnit"));
+      tables.computeIfAbsent(title, t -> new Table()).put(
+          (String) params.get("pool"),
+          Integer.parseInt((String) params.get("payloadSize")),
+          Json.number(metric.get("score")));
+    }
+  }
+
+  /**
+   * The garbage collector picked with a {@code -XX:+Use*GC} JVM argument, or
+   * "Default GC" if none was.
+   */
+  private static String collector(Map<String, Object> datapoint) {
+    String collector = "Default GC";
+    if (datapoint.containsKey("jvmArgs")) {
+      for (Object arg : list(datapoint.get("jvmArgs"))) {
+        Matcher matcher = COLLECTOR.matcher((String) arg);
+        if (matcher.matches()) {
+          collector = matcher.group(1);
+        }
+      }
+    }
+    return collector;
+  }
+
+  private static final class Table {
+    private final TreeSet<Integer> sizes = new TreeSet<>();
+    private final Map<String, Map<Integer, Double>> scores = new TreeMap<>(
+        (a, b) -> a.equals(b) ? 0 : a.equals(ALLOCATION) ? -1 : b.equals(ALLOCATION) ? 1 : a.compareTo(b));
+
+    void put(String pool, int size, double score) {
+      sizes.add(size);
+      scores.computeIfAbsent(pool, p -> new TreeMap<>()).put(size, score);
+    }
+
+    void print(PrintStream out) {
+      Map<Integer, Double> allocation = scores.getOrDefault(ALLOCATION, Map.of());
+      out.printf("%10s", "size");
+      for (String pool : scores.keySet()) {
+        out.printf("  %22s", pool);
+      }
+      out.println();
+      for (int size : sizes) {
+        out.printf("%10s", size(size));
+        for (Map<Integer, Double> poolScores : scores.values()) {
+          Double score = poolScores.get(size);
+          Double allocationScore = allocation.get(size);
+          if (score == null) {
+            out.printf("  %22s", "-");
+          } else if (allocationScore == null || poolScores == allocation) {
+            out.printf("  %22.1f", score);
+          } else {
+            out.printf("  %13.1f (%5.2fx)", score, score / allocationScore);
+          }
+        }
+        out.println();
+      }
+      if (allocation.isEmpty()) {
+        return;
+      }
+      out.printf("%10s", "breakeven");
+      for (Map<Integer, Double> poolScores : scores.values()) {
+        out.printf("  %22s", poolScores == allocation ? "" : breakeven(poolScores, allocation));
+      }
+      out.println();
+    }
+
+    private String breakeven(Map<Integer, Double> poolScores, Map<Integer, Double> allocation) {
+      Integer breakeven = null;
+      for (int size : sizes.descendingSet()) {
+        Double score = poolScores.get(size);
+        Double allocationScore = allocation.get(size);
+        if (score == null || allocationScore == null) {
+          continue;
+        }
+        if (score >= allocationScore) {
+          break;
+        }
+        breakeven = size;
+      }
+      return breakeven == null ? "never" : size(breakeven);
+    }
+  }
+
+  private static String size(int bytes) {
+    if (bytes >= 1 << 20 && bytes % (1 << 20) == 0) {
+      return (bytes >> 20) + " MiB";
+    }
+    if (bytes >= 1 << 10 && bytes % (1 << 10) == 0) {
+      return (bytes >> 10) + " KiB";
+    }
+    return bytes + " B";
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> map(Object value) {
+    return (Map<String, Object>) value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> list(Object value) {
+    return (List<Object>) value;
+  }
+}
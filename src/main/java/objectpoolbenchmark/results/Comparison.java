@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.stat.inference.TTest;
+
+/**
+ * Compares the results of two runs, configuration by configuration, and
+ * reports the changes that are both statistically significant and large
+ * enough to matter.
+ *
+ * The score is compared with Welch's t-test on the per-iteration scores, so
+ * a run needs at least two measurement iterations in total for its results
+ * to be tested. For the sample mode, the per-iteration 99th percentiles are
+ * tested the same way, to catch regressions in the tail latency that do not
+ * move the mean.
+ */
+final class Comparison {
+  private final double alpha;
+  private final double threshold;
+  private final TTest tTest = new TTest();
+  private int regressions;
+  private int improvements;
+  private int unchanged;
+  private int untestable;
+
+  /**
+   * @param alpha The significance level, below which a p-value counts as a
+   * significant change.
+   * @param threshold The smallest relative change worth reporting, such as
+   * 0.05 for 5%.
+   */
+  Comparison(double alpha, double threshold) {
+    this.alpha = alpha;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Print the significant changes from the baseline to the candidate run,
+   * and return the number of regressions.
+   */
+  int compare(ResultStore.Run baseline, ResultStore.Run candidate, PrintStream out) {
+    out.printf("# Comparing %s to %s, alpha = %s, threshold = %.1f%%%n",
+        baseline.name, candidate.name, alpha, threshold * 100);
+    Map<String, ResultRecord> baselineByKey = new HashMap<>();
+    for (ResultRecord record : baseline.records) {
+      baselineByKey.put(record.key(), record);
+    }
+    int onlyInCandidate = 0;
+    for (ResultRecord after : candidate.records) {
+      ResultRecord before = baselineByKey.remove(after.key());
+      if (before == null) {
+        onlyInCandidate++;
+        continue;
+      }
+      Change score = change(before.score, after.score,
+          before.samples, after.samples, after.higherIsBetter());
+      Change tail = change(before.p99, after.p99,
+          before.p99Samples, after.p99Samples, false);
+      if (score.isUntestable() && tail.isUntestable()) {
+        untestable++;
+      } else if (score.isRegression() || tail.isRegression()) {
+        regressions++;
+        print(out, "REGRESSION", before, after, score, tail);
+      } else if (score.isImprovement() || tail.isImprovement()) {
+        improvements++;
+        print(out, "IMPROVEMENT", before, after, score, tail);
+      } else {
+        unchanged++;
+      }
+    }
+    out.printf("# %d regressions, %d improvements, %d unchanged, %d untestable, "
+            + "%d only in %s, %d only in %s%n",
+        regressions, improvements, unchanged, untestable,
+        baselineByKey.size(), baseline.name, onlyInCandidate, candidate.name);
+    return regressions;
+  }
+
+  private void print(PrintStream out, String verdict, ResultRecord before, ResultRecord after,
+                     Change score, Change tail) {
+    out.println(verdict + ": " + after.describe());
+    if (!before.sameVersion(after)) {
+      out.println("    version " + before.version + " -> " + after.version);
+    }
+    if (!score.isUntestable()) {
+      out.println("    score " + score.describe(after.unit));
+    }
+    if (!tail.isUntestable()) {
+      out.println("    p99   " + tail.describe(after.unit));
+    }
+  }
+
+  private Change change(double before, double after, double[] beforeSamples,
+                        double[] afterSamples, boolean higherIsBetter) {
+    if (beforeSamples.length < 2 || afterSamples.length < 2 || Double.isNaN(before)) {
+      return new Change(before, after, Double.NaN, 0);
+    }
+    double pValue = tTest.tTest(beforeSamples, afterSamples);
+    double relative = (after - before) / before;
+    int direction = 0;
+    if (pValue < alpha && Math.abs(relative) >= threshold) {
+      direction = (relative > 0) == higherIsBetter ? 1 : -1;
+    }
+    return new Change(before, after, pValue, direction);
+  }
+
+  private static final class Change {
+    private final double before;
+    private final double after;
+    private final double pValue;
+    private final int direction;
+
+    Change(double before, double after, double pValue, int direction) {
+      this.before = before;
+      this.after = after;
+      this.pValue = pValue;
+      this.direction = direction;
+    }
+
+    boolean isUntestable() {
+      return Double.isNaN(pValue);
+    }
+
+    boolean isRegression() {
+      return direction < 0;
+    }
+
+    boolean isImprovement() {
+      return direction > 0;
+    }
+
+    String describe(String unit) {
+      return String.format("%.4g -> %.4g %s (%+.1f%%), p = %.2g",
+          before, after, unit, (after - before) / before * 100, pValue);
+    }
+  }
+}
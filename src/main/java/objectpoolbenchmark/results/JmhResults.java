@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import objectpoolbenchmark.suite.PoolAdapters;
+
+/**
+ * Turns the JSON files written by JMH with {@code -rf json} into
+ * {@link ResultRecord}s.
+ */
+final class JmhResults {
+  private static final String COST_PREFIX = "-Dcost.of.";
+  private static final String VERSIONS_PREFIX = "-D" + PoolAdapters.VERSIONS_PROPERTY + "=";
+
+  private JmhResults() {
+  }
+
+  /**
+   * Read the results in the given JMH JSON file.
+   *
+   * @param machine The machine the results were measured on.
+   * @param versions Maps pool names to the library version they were measured
+   * with, or null if unknown, for results that did not record the versions.
+   */
+  static List<ResultRecord> read(Path file, String machine, Function<String, String> versions)
+      throws IOException {
+    String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    List<ResultRecord> records = new ArrayList<>();
+    for (Object element : list(Json.parse(text))) {
+      records.add(record(map(element), machine, versions));
+    }
+    return records;
+  }
+
+  private static ResultRecord record(
+      Map<String, Object> datapoint, String machine, Function<String, String> versions) {
+    String benchmark = shortName((String) datapoint.get("benchmark"));
+    String mode = (String) datapoint.get("mode");
+    int threads = (int) Json.number(datapoint.get("threads"));
+
+    Map<String, Object> params = datapoint.containsKey("params")
+        ? new TreeMap<>(map(datapoint.get("params"))) : new TreeMap<>();
+    String pool = params.containsKey("pool") ? (String) params.remove("pool") : "-";
+    String poolSize = params.containsKey("poolSize") ? (String) params.remove("poolSize") : "";
+    String version = params.containsKey("version")
+        ? (String) params.remove("version") : recordedVersion(datapoint, pool);
+    if (version == null) {
+      version = versions.apply(pool);
+    }
+    StringBuilder otherParams = new StringBuilder();
+    for (Map.Entry<String, Object> param : params.entrySet()) {
+      if (otherParams.length() > 0) {
+        otherParams.append(", ");
+      }
+      otherParams.append(param.getKey()).append(" = ").append(param.getValue());
+    }
+
+    Map<String, Object> metric = map(datapoint.get("primaryMetric"));
+    String unit = (String) metric.get("scoreUnit");
+    double score = Json.number(metric.get("score"));
+    double error = Json.number(metric.get("scoreError"));
+    double p50 = Double.NaN;
+    double p99 = Double.NaN;
+    double p999 = Double.NaN;
+    List<Double> samples = new ArrayList<>();
+    List<Double> p99Samples = new ArrayList<>();
+    if (metric.containsKey("rawDataHistogram")) {
+      Map<String, Object> percentiles = map(metric.get("scorePercentiles"));
+      p50 = Json.number(percentiles.get("50.0"));
+      p99 = Json.number(percentiles.get("99.0"));
+      p999 = Json.number(percentiles.get("99.9"));
+      for (Object fork : list(metric.get("rawDataHistogram"))) {
+        for (Object iteration : list(fork)) {
+          List<Object> buckets = list(iteration);
+          double sum = 0;
+          double count = 0;
+          for (Object bucket : buckets) {
+            List<Object> valueAndCount = list(bucket);
+            sum += Json.number(valueAndCount.get(0)) * Json.number(valueAndCount.get(1));
+            count += Json.number(valueAndCount.get(1));
+          }
+          if (count > 0) {
+            samples.add(sum / count);
+            p99Samples.add(percentile(buckets, count, 0.99));
+          }
+        }
+      }
+    } else if (metric.containsKey("rawData")) {
+      for (Object fork : list(metric.get("rawData"))) {
+        for (Object iteration : list(fork)) {
+          samples.add(Json.number(iteration));
+        }
+      }
+    }
+    return new ResultRecord(benchmark, mode, pool, version, threads, poolSize,
+        otherParams.toString(), costs(datapoint), machine, unit,
+        score, error, p50, p99, p999, toArray(samples), toArray(p99Samples));
+  }
+
+  /**
+   * The value at the given quantile of a JMH histogram, which is a list of
+   * value and count pairs.
+   */
+  private static double percentile(List<Object> buckets, double count, double quantile) {
+    buckets.sort(Comparator.comparingDouble(bucket -> Json.number(list(bucket).get(0))));
+    double rank = Math.ceil(count * quantile);
+    double seen = 0;
+    for (Object bucket : buckets) {
+      List<Object> valueAndCount = list(bucket);
+      seen += Json.number(valueAndCount.get(1));
+      if (seen >= rank) {
+        return Json.number(valueAndCount.get(0));
+      }
+    }
+    return Json.number(list(buckets.get(buckets.size() - 1)).get(0));
+  }
+
+  private static double[] toArray(List<Double> values) {
+    double[] array = new double[values.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = values.get(i);
+    }
+    return array;
+  }
+
+  /**
+   * The {@code cost.of.*} system properties the benchmark JVM was started
+   * with, such as "allocation=1ms, usage=1000cpu", or "none".
+   */
+  private static String costs(Map<String, Object> datapoint) {
+    List<String> costs = new ArrayList<>();
+    if (datapoint.containsKey("jvmArgs")) {
+      for (Object arg : list(datapoint.get("jvmArgs"))) {
+        String jvmArg = (String) arg;
+        if (jvmArg.startsWith(COST_PREFIX)) {
+          costs.add(jvmArg.substring(COST_PREFIX.length()));
+        }
+      }
+    }
+    Collections.sort(costs);
+    return costs.isEmpty() ? "none" : String.join(", ", costs);
+  }
+
+  /**
+   * The version of the pool library that the benchmark JVM was started with
+   * in the {@link PoolAdapters#VERSIONS_PROPERTY}, or null if not recorded.
+   * Pools with an explicit version in their name are left to the caller.
+   */
+  private static String recordedVersion(Map<String, Object> datapoint, String pool) {
+    if (pool.indexOf(PoolAdapters.VERSION_SEPARATOR) != -1 || !datapoint.containsKey("jvmArgs")) {
+      return null;
+    }
+    int magazine = pool.indexOf(PoolAdapters.MAGAZINE_SUFFIX);
+    String adapter = magazine == -1 ? pool : pool.substring(0, magazine);
+    for (Object arg : list(datapoint.get("jvmArgs"))) {
+      String jvmArg = (String) arg;
+      if (jvmArg.startsWith(VERSIONS_PREFIX)) {
+        for (String entry : jvmArg.substring(VERSIONS_PREFIX.length()).split(",")) {
+          int equals = entry.indexOf('=');
+          if (equals != -1 && entry.substring(0, equals).equals(adapter)) {
+            return entry.substring(equals + 1);
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Strip the package from the benchmark name, leaving the class and method.
+   */
+  private static String shortName(String benchmark) {
+    int method = benchmark.lastIndexOf('.');
+    int cls = benchmark.lastIndexOf('.', method - 1);
+    return benchmark.substring(cls + 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> map(Object value) {
+    return (Map<String, Object>) value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> list(Object value) {
+    return (List<Object>) value;
+  }
+}
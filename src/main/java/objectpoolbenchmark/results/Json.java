@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a JSON parser to read the JMH result files. Objects become
+ * {@link Map}s, arrays become {@link List}s, and numbers become
+ * {@link Double}s. JMH writes "NaN" and "Infinity" as strings, so they are
+ * left as strings here, and {@link #number(Object)} turns them into doubles.
+ */
+final class Json {
+  private final String text;
+  private int pos;
+
+  private Json(String text) {
+    this.text = text;
+  }
+
+  static Object parse(String text) {
+    Json json = new Json(text);
+    Object value = json.value();
+    json.whitespace();
+    if (json.pos != text.length()) {
+      throw json.error("Trailing characters");
+    }
+    return value;
+  }
+
+  static double number(Object value) {
+    if (value instanceof Double) {
+      return (Double) value;
+    }
+    if (value instanceof String) {
+      return Double.parseDouble((String) value);
+    }
+    return Double.NaN;
+  }
+
+  private Object value() {
+    whitespace();
+    if (pos == text.length()) {
+      throw error("Unexpected end of input");
+    }
+    char c = text.charAt(pos);
+    switch (c) {
+      case '{': return object();
+      case '[': return array();
+      case '"': return string();
+      case 't': return literal("true", Boolean.TRUE);
+      case 'f': return literal("false", Boolean.FALSE);
+      case 'n': return literal("null", null);
+      default: return number();
+    }
+  }
+
+  private Map<String, Object> object() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    pos++;
+    whitespace();
+    if (peek() == '}') {
+      pos++;
+      return map;
+    }
+    do {
+      whitespace();
+      String key = string();
+      whitespace();
+      expect(':');
+      map.put(key, value());
+      whitespace();
+    } while (next() == ',');
+    pos--;
+    expect('}');
+    return map;
+  }
+
+  private List<Object> array() {
+    List<Object> list = new ArrayList<>();
+    pos++;
+    whitespace();
+    if (peek() == ']') {
+      pos++;
+      return list;
+    }
+    do {
+      list.add(value());
+      whitespace();
+    } while (next() == ',');
+    pos--;
+    expect(']');
+    return list;
+  }
+
+  private String string() {
+    expect('"');
+    StringBuilder sb = new StringBuilder();
+    for (char c = next(); c != '"'; c = next()) {
+      if (c == '\\') {
+        c = next();
+        switch (c) {
+          case 'b': sb.append('\b'); break;
+          case 'f': sb.append('\f'); break;
+          case 'n': sb.append('\n'); break;
+          case 'r': sb.append('\r'); break;
+          case 't': sb.append('\t'); break;
+          case 'u':
+            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+            pos += 4;
+            break;
+          default: sb.append(c);
+        }
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private Double number() {
+    int start = pos;
+    while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+      pos++;
+    }
+    if (start == pos) {
+      throw error("Unexpected character '" + text.charAt(pos) + "'");
+    }
+    return Double.valueOf(text.substring(start, pos));
+  }
+
+  private Object literal(String word, Object value) {
+    if (!text.startsWith(word, pos)) {
+      throw error("Expected " + word);
+    }
+    pos += word.length();
+    return value;
+  }
+
+  private void whitespace() {
+    while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private char peek() {
+    return pos < text.length() ? text.charAt(pos) : 0;
+  }
+
+  private char next() {
+    if (pos == text.length()) {
+      throw error("Unexpected end of input");
+    }
+    return text.charAt(pos++);
+  }
+
+  private void expect(char c) {
+    if (next() != c) {
+      throw error("Expected '" + c + "'");
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at offset " + pos);
+  }
+}
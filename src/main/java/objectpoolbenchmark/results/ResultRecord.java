@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The stored outcome of one benchmark configuration in one run.
+ *
+ * The samples are the score of every measurement iteration of every fork,
+ * or the mean of every iteration for the sample mode, and are what the
+ * significance tests are done on. The percentiles, and the 99th percentile
+ * of every iteration, are only known for the sample mode. The percentiles
+ * are NaN otherwise.
+ */
+final class ResultRecord {
+  final String benchmark;
+  final String mode;
+  final String pool;
+  final String version;
+  final int threads;
+  final String poolSize;
+  final String params;
+  final String costs;
+  final String machine;
+  final String unit;
+  final double score;
+  final double error;
+  final double p50;
+  final double p99;
+  final double p999;
+  final double[] samples;
+  final double[] p99Samples;
+
+  ResultRecord(
+      String benchmark, String mode, String pool, String version, int threads,
+      String poolSize, String params, String costs, String machine, String unit,
+      double score, double error, double p50, double p99, double p999,
+      double[] samples, double[] p99Samples) {
+    this.benchmark = benchmark;
+    this.mode = mode;
+    this.pool = pool;
+    this.version = version;
+    this.threads = threads;
+    this.poolSize = poolSize;
+    this.params = params;
+    this.costs = costs;
+    this.machine = machine;
+    this.unit = unit;
+    this.score = score;
+    this.error = error;
+    this.p50 = p50;
+    this.p99 = p99;
+    this.p999 = p999;
+    this.samples = samples;
+    this.p99Samples = p99Samples;
+  }
+
+  /**
+   * Identifies the configuration that was measured. The library version is
+   * deliberately not part of it, so runs before and after an upgrade can be
+   * compared.
+   */
+  String key() {
+    return String.join("|", benchmark, mode, pool, Integer.toString(threads),
+        poolSize, params, costs, machine);
+  }
+
+  /**
+   * Whether a higher score is better, which is the case for throughput, but
+   * not for the modes that measure time per operation.
+   */
+  boolean higherIsBetter() {
+    return "thrpt".equals(mode);
+  }
+
+  String describe() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(benchmark).append(' ').append(mode).append(' ').append(pool);
+    if (version != null) {
+      sb.append(' ').append(version);
+    }
+    sb.append(", threads = ").append(threads);
+    if (!poolSize.isEmpty()) {
+      sb.append(", poolSize = ").append(poolSize);
+    }
+    if (!params.isEmpty()) {
+      sb.append(", ").append(params);
+    }
+    sb.append(", costs = ").append(costs);
+    return sb.toString();
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeUTF(benchmark);
+    out.writeUTF(mode);
+    out.writeUTF(pool);
+    out.writeUTF(version == null ? "" : version);
+    out.writeInt(threads);
+    out.writeUTF(poolSize);
+    out.writeUTF(params);
+    out.writeUTF(costs);
+    out.writeUTF(machine);
+    out.writeUTF(unit);
+    out.writeDouble(score);
+    out.writeDouble(error);
+    out.writeDouble(p50);
+    out.writeDouble(p99);
+    out.writeDouble(p999);
+    writeSamples(out, samples);
+    writeSamples(out, p99Samples);
+  }
+
+  private static void writeSamples(DataOutput out, double[] samples) throws IOException {
+    out.writeInt(samples.length);
+    for (double sample : samples) {
+      out.writeDouble(sample);
+    }
+  }
+
+  private static double[] readSamples(DataInput in) throws IOException {
+    double[] samples = new double[in.readInt()];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = in.readDouble();
+    }
+    return samples;
+  }
+
+  static ResultRecord read(DataInput in) throws IOException {
+    String benchmark = in.readUTF();
+    String mode = in.readUTF();
+    String pool = in.readUTF();
+    String version = in.readUTF();
+    int threads = in.readInt();
+    String poolSize = in.readUTF();
+    String params = in.readUTF();
+    String costs = in.readUTF();
+    String machine = in.readUTF();
+    String unit = in.readUTF();
+    double score = in.readDouble();
+    double error = in.readDouble();
+    double p50 = in.readDouble();
+    double p99 = in.readDouble();
+    double p999 = in.readDouble();
+    double[] samples = readSamples(in);
+    double[] p99Samples = readSamples(in);
+    return new ResultRecord(benchmark, mode, pool, version.isEmpty() ? null : version,
+        threads, poolSize, params, costs, machine, unit, score, error, p50, p99, p999,
+        samples, p99Samples);
+  }
+
+  boolean sameVersion(ResultRecord other) {
+    return Objects.equals(version, other.version);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single file holding the results of any number of named runs.
+ *
+ * The file is a small binary format written with {@link DataOutputStream}:
+ * a magic number and format version, followed by the runs and their
+ * {@link ResultRecord records}. The whole file is read into memory, and
+ * rewritten by {@link #save()} through a temporary file, so a crash never
+ * leaves a half written store behind.
+ */
+final class ResultStore {
+  private static final int MAGIC = 0x4F504252; // "OPBR"
+  private static final int FORMAT_VERSION = 1;
+
+  static final class Run {
+    final String name;
+    final long ingestedMillis;
+    final List<ResultRecord> records;
+
+    Run(String name, long ingestedMillis, List<ResultRecord> records) {
+      this.name = name;
+      this.ingestedMillis = ingestedMillis;
+      this.records = records;
+    }
+  }
+
+  private final Path file;
+  private final Map<String, Run> runs = new LinkedHashMap<>();
+
+  private ResultStore(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Open the store in the given file, which is created by {@link #save()} if
+   * it does not exist yet.
+   */
+  static ResultStore open(Path file) throws IOException {
+    ResultStore store = new ResultStore(file);
+    if (Files.exists(file)) {
+      try (DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Files.newInputStream(file)))) {
+        if (in.readInt() != MAGIC) {
+          throw new IOException(file + " is not a results store");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+          throw new IOException(file + " has unsupported format version " + version);
+        }
+        int runCount = in.readInt();
+        for (int i = 0; i < runCount; i++) {
+          String name = in.readUTF();
+          long ingestedMillis = in.readLong();
+          int recordCount = in.readInt();
+          List<ResultRecord> records = new ArrayList<>(recordCount);
+          for (int j = 0; j < recordCount; j++) {
+            records.add(ResultRecord.read(in));
+          }
+          store.runs.put(name, new Run(name, ingestedMillis, records));
+        }
+      }
+    }
+    return store;
+  }
+
+  Collection<Run> runs() {
+    return runs.values();
+  }
+
+  Run run(String name) {
+    Run run = runs.get(name);
+    if (run == null) {
+      throw new IllegalArgumentException("Unknown run '" + name + "', expected one of " + runs.keySet());
+    }
+    return run;
+  }
+
+  /**
+   * Add the run to the store, replacing any existing run by the same name.
+   */
+  void put(Run run) {
+    runs.remove(run.name);
+    runs.put(run.name, run);
+  }
+
+  void save() throws IOException {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(runs.size());
+        for (Run run : runs.values()) {
+          out.writeUTF(run.name);
+          out.writeLong(run.ingestedMillis);
+          out.writeInt(run.records.size());
+          for (ResultRecord record : run.records) {
+            record.write(out);
+          }
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.results;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import objectpoolbenchmark.suite.PoolAdapters;
+
+/**
+ * Keeps the results of benchmark runs in a {@link ResultStore}, so that runs
+ * can be compared, for instance before and after a library upgrade.
+ *
+ * Ingest the JMH JSON files in a results directory, such as one written by
+ * the fullsuite, as a run named after the directory:
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar objectpoolbenchmark.results.Results \
+ *       ingest results/results.db results/2020-10-03-Linux-x86_64-8core
+ * </pre>
+ *
+ * Then list the runs in the store, and compare two of them:
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar objectpoolbenchmark.results.Results \
+ *       compare results/results.db 2020-10-03-Linux-x86_64-8core 2020-11-14-Linux-x86_64-8core
+ * </pre>
+ *
+ * The compare command exits with status 1 if it found any regressions.
+ */
+public class Results {
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      usage();
+    }
+    Path storeFile = Paths.get(args[1]);
+    switch (args[0]) {
+      case "ingest":
+        ingest(storeFile, args);
+        break;
+      case "list":
+        list(ResultStore.open(storeFile));
+        break;
+      case "compare":
+        if (args.length < 4) {
+          usage();
+        }
+        ResultStore store = ResultStore.open(storeFile);
+        Comparison comparison = new Comparison(
+            Double.parseDouble(option(args, "-alpha", "0.01")),
+            Double.parseDouble(option(args, "-threshold", "0.05")));
+        int regressions = comparison.compare(store.run(args[2]), store.run(args[3]), System.out);
+        System.exit(regressions == 0 ? 0 : 1);
+        break;
+      default:
+        usage();
+    }
+  }
+
+  private static void usage() {
+    System.err.println("Usage: Results ingest <store> <result directory or file>... [-machine <name>]");
+    System.err.println("       Results list <store>");
+    System.err.println("       Results compare <store> <baseline run> <candidate run> "
+        + "[-alpha 0.01] [-threshold 0.05]");
+    System.exit(2);
+  }
+
+  private static void ingest(Path storeFile, String[] args) throws IOException {
+    String machine = option(args, "-machine", defaultMachine());
+    Function<String, String> versions = new LibraryVersions();
+    ResultStore store = ResultStore.open(storeFile);
+    for (int i = 2; i < args.length; i++) {
+      if (args[i].startsWith("-")) {
+        i++;
+        continue;
+      }
+      Path path = Paths.get(args[i]);
+      List<Path> files;
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> list = Files.list(path)) {
+          files = list.filter(p -> p.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+        }
+      } else {
+        files = List.of(path);
+      }
+      List<ResultRecord> records = new ArrayList<>();
+      for (Path file : files) {
+        records.addAll(JmhResults.read(file, machine, versions));
+      }
+      String name = path.getFileName().toString().replaceFirst("\\.json$", "");
+      store.put(new ResultStore.Run(name, System.currentTimeMillis(), records));
+      System.out.printf("Ingested %d results from %d files as run %s%n", records.size(), files.size(), name);
+    }
+    store.save();
+  }
+
+  private static void list(ResultStore store) {
+    for (ResultStore.Run run : store.runs()) {
+      Map<String, String> pools = new HashMap<>();
+      for (ResultRecord record : run.records) {
+        pools.put(record.pool, record.version);
+      }
+      String machines = run.records.stream().map(r -> r.machine).distinct()
+          .collect(Collectors.joining(", "));
+      System.out.printf("%s: %d results on %s, pools %s%n", run.name, run.records.size(), machines, pools);
+    }
+  }
+
+  private static String option(String[] args, String name, String defaultValue) {
+    for (int i = 0; i < args.length - 1; i++) {
+      if (args[i].equals(name)) {
+        return args[i + 1];
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Describes this machine like the fullsuite names its result directories.
+   */
+  private static String defaultMachine() {
+    return System.getProperty("os.name") + "-" + System.getProperty("os.arch") + "-"
+        + Runtime.getRuntime().availableProcessors() + "core";
+  }
+
+  /**
+   * Looks up the version of the library behind each pool, on the class path
+   * of the ingester, for results from before the benchmarks jar recorded the
+   * versions it was run with. Those results should be ingested with the build
+   * that produced them.
+   */
+  private static final class LibraryVersions implements Function<String, String> {
+    private final Map<String, String> versions = new HashMap<>();
+
+    @Override
+    public String apply(String pool) {
+      return versions.computeIfAbsent(pool, name -> {
+        try {
+          return PoolAdapters.create(name).version();
+        } catch (IllegalArgumentException e) {
+          return null;
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.specific.falsesharing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * The claim and release of a pool slot, as a CAS from free to claimed and a
+ * lazySet back to free, on slot states laid out in different ways:
+ *
+ * <ul>
+ *   <li>{@code array}: adjacent ints in an {@link AtomicIntegerArray}, like a
+ *   bitmap pool.</li>
+ *   <li>{@code paddedArray}: ints in an {@link AtomicIntegerArray}, spaced
+ *   {@link #STRIDE} ints apart.</li>
+ *   <li>{@code objects}: separate {@link AtomicInteger} objects, allocated
+ *   back to back, like the slots of Stormpot or the ConcurrentBag
+ *   entries.</li>
+ *   <li>{@code paddedObjects}: separate {@link AtomicInteger} objects, padded
+ *   to more than a cache line.</li>
+ * </ul>
+ *
+ * With {@code access=own}, every thread has a slot to itself, so any contention
+ * is false sharing. With {@code access=random}, threads claim random slots, and
+ * also really contend. Run it with 1 to N threads, and with the
+ * {@code perfnorm} and {@code objectpoolbenchmark.profile.PerfC2CProfiler}
+ * profilers, to see the L1 misses and HITMs per claim.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SlotStateCas {
+  private static final int SLOTS = 64;
+  private static final int STRIDE = 32; // 128 bytes, to also defeat adjacent line prefetch
+  private static final int FREE = 0;
+  private static final int CLAIMED = 1;
+
+  @Param({"own", "random"})
+  public String access;
+
+  private AtomicIntegerArray array;
+  private AtomicIntegerArray paddedArray;
+  private AtomicInteger[] objects;
+  private AtomicInteger[] paddedObjects;
+
+  @Setup
+  public void setUp() {
+    array = new AtomicIntegerArray(SLOTS);
+    paddedArray = new AtomicIntegerArray(SLOTS * STRIDE);
+    objects = new AtomicInteger[SLOTS];
+    paddedObjects = new AtomicInteger[SLOTS];
+    // Separate loops, so the unpadded objects end up next to each other.
+    for (int i = 0; i < SLOTS; i++) {
+      objects[i] = new AtomicInteger();
+    }
+    for (int i = 0; i < SLOTS; i++) {
+      paddedObjects[i] = new PaddedAtomicInteger();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Slot {
+    private int ownIndex;
+    private boolean random;
+
+    @Setup
+    public void setUp(SlotStateCas benchmark, ThreadParams threadParams) {
+      if (threadParams.getThreadCount() > SLOTS) {
+        throw new IllegalStateException("At most " + SLOTS + " threads are supported");
+      }
+      ownIndex = threadParams.getThreadIndex();
+      random = benchmark.access.equals("random");
+    }
+
+    int index() {
+      return random ? ThreadLocalRandom.current().nextInt(SLOTS) : ownIndex;
+    }
+  }
+
+  @Benchmark
+  public boolean array(Slot slot) {
+    int index = slot.index();
+    if (array.compareAndSet(index, FREE, CLAIMED)) {
+      array.lazySet(index, FREE);
+      return true;
+    }
+    return false;
+  }
+
+  @Benchmark
+  public boolean paddedArray(Slot slot) {
+    int index = slot.index() * STRIDE;
+    if (paddedArray.compareAndSet(index, FREE, CLAIMED)) {
+      paddedArray.lazySet(index, FREE);
+      return true;
+    }
+    return false;
+  }
+
+  @Benchmark
+  public boolean objects(Slot slot) {
+    AtomicInteger state = objects[slot.index()];
+    if (state.compareAndSet(FREE, CLAIMED)) {
+      state.lazySet(FREE);
+      return true;
+    }
+    return false;
+  }
+
+  @Benchmark
+  public boolean paddedObjects(Slot slot) {
+    AtomicInteger state = paddedObjects[slot.index()];
+    if (state.compareAndSet(FREE, CLAIMED)) {
+      state.lazySet(FREE);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Subclass fields are laid out after the fields of the super class, so the
+   * padding ends up between the value of this object and the next object
+   * allocated after it.
+   */
+  @SuppressWarnings("unused")
+  private static class PaddedAtomicInteger extends AtomicInteger {
+    private long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14, p15;
+  }
+}
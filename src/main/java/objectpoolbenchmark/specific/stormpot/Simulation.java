@@ -19,12 +19,9 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
-import objectpoolbenchmark.suite.stormpot.GenericAllocator;
-import objectpoolbenchmark.suite.stormpot.GenericPoolable;
-import objectpoolbenchmark.suite.stormpot.GenericPoolableExpiration;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.PoolAdapters;
 import org.openjdk.jmh.annotations.*;
-import stormpot.Pool;
-import stormpot.Timeout;
 
 
 @Threads(4)
@@ -34,9 +31,11 @@ import stormpot.Timeout;
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
 @State(Scope.Benchmark)
 public class Simulation {
-  private static final Timeout timeout = new Timeout(10, TimeUnit.SECONDS);
+  @Param({"StormpotBlazePool"})
+  public String pool;
+
   private ThreadLocal<AtomicLong> tlr;
-  private Pool<GenericPoolable> pool;
+  private PoolAdapter adapter;
   private Callable<Object> objectCreator = new Callable<Object>() {
     @Override
     public Object call() throws Exception {
@@ -45,16 +44,17 @@ public class Simulation {
   };
 
   @Setup
-  public void setUp() {
+  public void setUp() throws Exception {
     tlr = new ThreadLocal<>();
-    pool = Pool.from(new GenericAllocator()).setSize(10).setExpiration(new GenericPoolableExpiration()).build();
+    adapter = PoolAdapters.create(pool);
+    adapter.create(10);
   }
 
   @TearDown
-  public void tearDown() throws InterruptedException {
+  public void tearDown() throws Exception {
     tlr.remove();
     tlr = null;
-    pool.shutdown().await(timeout);
+    adapter.shutdown();
   }
 
   @Benchmark
@@ -77,16 +77,16 @@ public class Simulation {
   }
 
   @Benchmark
-  public Object claimReleaseWithReturn(Simulation sim) throws InterruptedException {
-    GenericPoolable obj = sim.pool.claim(timeout);
-    obj.release();
+  public Object claimReleaseWithReturn(Simulation sim) throws Exception {
+    Object obj = sim.adapter.claim();
+    sim.adapter.release(obj);
     return obj;
   }
 
   @Benchmark
-  public void claimReleaseWithoutReturn(Simulation sim) throws InterruptedException {
-    GenericPoolable obj = sim.pool.claim(timeout);
-    obj.release();
+  public void claimReleaseWithoutReturn(Simulation sim) throws Exception {
+    Object obj = sim.adapter.claim();
+    sim.adapter.release(obj);
   }
 
   @Benchmark
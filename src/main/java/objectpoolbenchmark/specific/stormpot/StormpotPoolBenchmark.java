@@ -15,24 +15,22 @@
  */
 package objectpoolbenchmark.specific.stormpot;
 
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import objectpoolbenchmark.suite.stormpot.GenericAllocator;
-import objectpoolbenchmark.suite.stormpot.GenericPoolable;
-import objectpoolbenchmark.suite.stormpot.GenericPoolableExpiration;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.PoolAdapters;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
-import stormpot.Pool;
-import stormpot.Timeout;
 
 @State(Scope.Benchmark)
 public class StormpotPoolBenchmark
 {
-  private static final Timeout timeout = new Timeout(1, TimeUnit.MINUTES);
   private static final Object tokenObject = new Object();
 
-  private Pool<GenericPoolable> pool;
+  @Param({"StormpotBlazePool"})
+  public String pool;
+
+  private PoolAdapter adapter;
   private AtomicInteger atomicInteger;
   private ThreadLocal<Object> threadLocal;
 
@@ -60,29 +58,30 @@ public class StormpotPoolBenchmark
   }
 
   @Benchmark
-  public void BlazePool_claimRelease() throws InterruptedException {
-    pool.claim(timeout).release();
+  public void BlazePool_claimRelease() throws Exception {
+    adapter.release(adapter.claim());
   }
 
   @Benchmark
-  public void BlazePool_claimRelease_withBH(Blackhole blackhole) throws InterruptedException {
-    GenericPoolable obj = pool.claim(timeout);
+  public void BlazePool_claimRelease_withBH(Blackhole blackhole) throws Exception {
+    Object obj = adapter.claim();
     blackhole.consume(obj);
-    obj.release();
+    adapter.release(obj);
   }
 
 
   @Setup
-  public void createPool() throws InterruptedException {
-    pool = Pool.from(new GenericAllocator()).setExpiration(new GenericPoolableExpiration()).build();
-    pool.claim(timeout).release();
+  public void createPool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.create(10);
+    adapter.release(adapter.claim());
     atomicInteger = new AtomicInteger();
     threadLocal = new ThreadLocal<>();
     threadLocal.set(tokenObject);
   }
 
   @TearDown
-  public void shutPoolDown() throws InterruptedException {
-    pool.shutdown().await(timeout);
+  public void shutPoolDown() throws Exception {
+    adapter.shutdown();
   }
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import objectpoolbenchmark.openloop.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Claims objects through an {@link AsyncPool}, from a few single threaded
+ * event loops that must never block, like the I/O threads of a reactive
+ * service.
+ *
+ * The benchmark thread only issues requests, to the event loops in turn, and
+ * keeps {@code outstanding} of them in flight. Each request claims an object
+ * asynchronously on its event loop, and when the claim completes, uses the
+ * object and releases it, back on the same event loop. With a
+ * {@code holdMicros} above zero, the object is held across an asynchronous
+ * wait in between, like a connection waiting for the reply to a query, so the
+ * event loop serves other requests meanwhile, and claims have to wait for
+ * objects. When the claim completes on another thread, such as a bridge
+ * thread, or the event loop that released the object, the rest of the request
+ * is handed back to its own event loop, like the listeners of a Netty
+ * promise. The throughput is the rate of completed requests.
+ *
+ * The {@code Requests} counters split the requests into those whose claims
+ * completed at once, and those that waited, and of those, the ones that were
+ * handed back from another thread, with the time from the completion of the
+ * claim until the request ran again on its event loop. The total time from
+ * issuing to completing the requests is counted as well, and published to
+ * the {@link Latencies} as {@code completion}, so run with
+ * {@code -prof objectpoolbenchmark.profile.LatencyProfiler} to get its
+ * percentiles. The counters are only meaningful in the thrpt and avgt modes.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+public class AsyncClaim
+{
+  private static final long DRAIN_TIMEOUT_SECONDS = 10;
+
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "ConcurrentBag",
+      "ReferenceBitmap"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"native", "bridge"})
+  public String claimPath;
+
+  @Param({"2"})
+  public int eventLoops;
+
+  @Param({"16", "256"})
+  public int outstanding;
+
+  @Param({"0", "100"})
+  public int holdMicros;
+
+  private PoolAdapter adapter;
+  private AsyncPool asyncPool;
+  private EventLoop[] loops;
+  private Semaphore inFlight;
+  private int nextLoop;
+
+  private final LongAdder immediateClaims = new LongAdder();
+  private final LongAdder waitingClaims = new LongAdder();
+  private final LongAdder failedClaims = new LongAdder();
+  private final LongAdder handoffs = new LongAdder();
+  private final LongAdder handoffNanos = new LongAdder();
+  private final LongAdder completionNanos = new LongAdder();
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.create(poolSize);
+    asyncPool = AsyncPool.create(adapter, claimPath, poolSize);
+    loops = new EventLoop[eventLoops];
+    for (int i = 0; i < eventLoops; i++) {
+      loops[i] = new EventLoop(i);
+    }
+    inFlight = new Semaphore(outstanding);
+  }
+
+  @TearDown(Level.Iteration)
+  public void drainRequests() throws Exception {
+    if (!inFlight.tryAcquire(outstanding, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Requests did not complete within " + DRAIN_TIMEOUT_SECONDS + " seconds");
+    }
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (EventLoop loop : loops) {
+      histogram.add(loop.histogram);
+      loop.histogram = new LatencyHistogram();
+    }
+    inFlight.release(outstanding);
+    Latencies.publish("completion", histogram);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    for (EventLoop loop : loops) {
+      loop.shutdown();
+    }
+    asyncPool.shutdown();
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void request(Requests requests) throws Exception {
+    inFlight.acquire();
+    EventLoop loop = loops[nextLoop];
+    nextLoop = nextLoop + 1 == loops.length ? 0 : nextLoop + 1;
+    long issued = System.nanoTime();
+    loop.execute(() -> claim(loop, issued));
+  }
+
+  private void claim(EventLoop loop, long issued) {
+    CompletableFuture<Object> claim = asyncPool.claim();
+    if (claim.isDone()) {
+      immediateClaims.increment();
+    } else {
+      waitingClaims.increment();
+    }
+    claim.whenComplete((obj, e) -> {
+      if (loop.inEventLoop()) {
+        complete(loop, obj, e, issued);
+      } else {
+        long completed = System.nanoTime();
+        loop.execute(() -> {
+          handoffs.increment();
+          handoffNanos.add(System.nanoTime() - completed);
+          complete(loop, obj, e, issued);
+        });
+      }
+    });
+  }
+
+  private void complete(EventLoop loop, Object obj, Throwable e, long issued) {
+    try {
+      if (e != null) {
+        failedClaims.increment();
+        finish(loop, issued);
+        return;
+      }
+      Costs.expendUsage();
+      if (holdMicros == 0) {
+        release(loop, obj, issued);
+      } else {
+        loop.schedule(() -> release(loop, obj, issued), holdMicros);
+      }
+    } catch (RuntimeException usageFailure) {
+      failedClaims.increment();
+      finish(loop, issued);
+    }
+  }
+
+  private void release(EventLoop loop, Object obj, long issued) {
+    try {
+      asyncPool.release(obj);
+    } catch (Exception releaseFailure) {
+      failedClaims.increment();
+    } finally {
+      finish(loop, issued);
+    }
+  }
+
+  private void finish(EventLoop loop, long issued) {
+    long nanos = System.nanoTime() - issued;
+    completionNanos.add(nanos);
+    loop.histogram.record(nanos);
+    inFlight.release();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Requests {
+    public long immediateClaims;
+    public long waitingClaims;
+    public long failedClaims;
+    public long handoffs;
+    public long handoffNanos;
+    public long completionNanos;
+    private AsyncClaim benchmark;
+    private boolean reporting;
+    private long immediateClaimsAtStart;
+    private long waitingClaimsAtStart;
+    private long failedClaimsAtStart;
+    private long handoffsAtStart;
+    private long handoffNanosAtStart;
+    private long completionNanosAtStart;
+
+    @Setup(Level.Iteration)
+    public void start(AsyncClaim benchmark, ThreadParams threadParams) {
+      this.benchmark = benchmark;
+      reporting = threadParams.getThreadIndex() == 0;
+      immediateClaimsAtStart = benchmark.immediateClaims.sum();
+      waitingClaimsAtStart = benchmark.waitingClaims.sum();
+      failedClaimsAtStart = benchmark.failedClaims.sum();
+      handoffsAtStart = benchmark.handoffs.sum();
+      handoffNanosAtStart = benchmark.handoffNanos.sum();
+      completionNanosAtStart = benchmark.completionNanos.sum();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+      if (reporting) {
+        immediateClaims = benchmark.immediateClaims.sum() - immediateClaimsAtStart;
+        waitingClaims = benchmark.waitingClaims.sum() - waitingClaimsAtStart;
+        failedClaims = benchmark.failedClaims.sum() - failedClaimsAtStart;
+        handoffs = benchmark.handoffs.sum() - handoffsAtStart;
+        handoffNanos = benchmark.handoffNanos.sum() - handoffNanosAtStart;
+        completionNanos = benchmark.completionNanos.sum() - completionNanosAtStart;
+      }
+    }
+  }
+
+  /**
+   * A single thread that runs tasks in order, and records the completion
+   * latency of its own requests, so it needs no synchronisation.
+   */
+  private static final class EventLoop implements Executor {
+    private final ScheduledExecutorService executor;
+    private volatile Thread thread;
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    EventLoop(int index) {
+      executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "event-loop-" + index);
+        thread.setDaemon(true);
+        this.thread = thread;
+        return thread;
+      });
+    }
+
+    boolean inEventLoop() {
+      return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      executor.execute(task);
+    }
+
+    void schedule(Runnable task, long micros) {
+      executor.schedule(task, micros, TimeUnit.MICROSECONDS);
+    }
+
+    void shutdown() {
+      executor.shutdownNow();
+    }
+  }
+}
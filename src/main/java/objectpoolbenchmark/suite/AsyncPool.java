@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims objects from a pool without blocking the calling thread, by
+ * returning a {@link CompletableFuture} that completes with the object.
+ *
+ * None of the pool libraries have an asynchronous claim of their own, so
+ * there are two ways of getting one:
+ * <ul>
+ *   <li>{@code native}: try a claim with a zero timeout, which does not wait,
+ *   and if the pool is empty, queue up the future as a waiter. Released
+ *   objects are then handed straight to the oldest waiter, on the releasing
+ *   thread, without going back into the pool. This needs claim timeouts, and
+ *   the handed over objects skip the validation of the pool.</li>
+ *   <li>{@code bridge}: run the blocking claim on a thread of its own, which
+ *   parks until the pool has an object, and completes the future from there.
+ *   This works for every pool, but every claim is a trip through the queue of
+ *   an executor.</li>
+ * </ul>
+ */
+public abstract class AsyncPool {
+  protected final PoolAdapter adapter;
+
+  private AsyncPool(PoolAdapter adapter) {
+    this.adapter = adapter;
+  }
+
+  /**
+   * Wrap the given, already created, pool. The bridge gets a thread per pooled
+   * object, since that is the most claims that can be waiting for the pool at
+   * the same time, and still succeed.
+   */
+  public static AsyncPool create(PoolAdapter adapter, String claimPath, int poolSize) {
+    switch (claimPath) {
+      case "native":
+        if (!adapter.supportsTimeouts()) {
+          throw new IllegalArgumentException(adapter.name() + " has no native async claims, since it has no claim timeouts");
+        }
+        return new NonBlocking(adapter);
+      case "bridge":
+        return new Bridge(adapter, poolSize);
+      default:
+        throw new IllegalArgumentException("Unknown claim path '" + claimPath + "', expected native or bridge");
+    }
+  }
+
+  /**
+   * Claim an object. The future may already be complete when it is returned,
+   * and otherwise completes on whatever thread got the object.
+   */
+  public abstract CompletableFuture<Object> claim();
+
+  public abstract void release(Object obj) throws Exception;
+
+  /**
+   * Stop completing claims. This does not shut down the pool.
+   */
+  public abstract void shutdown();
+
+  private static final class NonBlocking extends AsyncPool {
+    private final Queue<CompletableFuture<Object>> waiters = new ConcurrentLinkedQueue<>();
+
+    NonBlocking(PoolAdapter adapter) {
+      super(adapter);
+    }
+
+    @Override
+    public CompletableFuture<Object> claim() {
+      try {
+        Object obj = adapter.claim(0, TimeUnit.NANOSECONDS);
+        if (obj != null) {
+          return CompletableFuture.completedFuture(obj);
+        }
+        CompletableFuture<Object> waiter = new CompletableFuture<>();
+        waiters.offer(waiter);
+        serveWaiters();
+        return waiter;
+      } catch (Exception e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    @Override
+    public void release(Object obj) throws Exception {
+      if (!handOver(obj)) {
+        adapter.release(obj);
+        serveWaiters();
+      }
+    }
+
+    private boolean handOver(Object obj) {
+      CompletableFuture<Object> waiter;
+      while ((waiter = waiters.poll()) != null) {
+        if (waiter.complete(obj)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * A waiter can be queued just after a release found no waiters, but before
+     * it put the object back into the pool. So both sides check the other
+     * after they are done: claims try the pool again after queueing up, and
+     * releases look for waiters again after releasing into the pool.
+     */
+    private void serveWaiters() throws Exception {
+      while (!waiters.isEmpty()) {
+        Object obj = adapter.claim(0, TimeUnit.NANOSECONDS);
+        if (obj == null) {
+          return;
+        }
+        if (!handOver(obj)) {
+          adapter.release(obj);
+        }
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      CompletableFuture<Object> waiter;
+      while ((waiter = waiters.poll()) != null) {
+        waiter.cancel(false);
+      }
+    }
+  }
+
+  private static final class Bridge extends AsyncPool {
+    private final ExecutorService bridgeThreads;
+
+    Bridge(PoolAdapter adapter, int threads) {
+      super(adapter);
+      bridgeThreads = Executors.newFixedThreadPool(threads, r -> {
+        Thread thread = new Thread(r, "async-claim-bridge");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    @Override
+    public CompletableFuture<Object> claim() {
+      CompletableFuture<Object> future = new CompletableFuture<>();
+      bridgeThreads.execute(() -> {
+        try {
+          future.complete(adapter.claim());
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        }
+      });
+      return future;
+    }
+
+    @Override
+    public void release(Object obj) throws Exception {
+      adapter.release(obj);
+    }
+
+    @Override
+    public void shutdown() {
+      bridgeThreads.shutdownNow();
+    }
+  }
+}
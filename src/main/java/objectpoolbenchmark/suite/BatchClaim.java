@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Claims and releases {@code batchSize} objects per operation, with the bulk
+ * operations of the pools that have them, and one object at a time otherwise.
+ * The {@link Objects} counter gives the throughput in objects rather than
+ * batches.
+ *
+ * When the batches from all the threads add up to more than the pool size,
+ * threads that claim one object at a time can deadlock on each other's partial
+ * batches. Pools that support timeouts then give up on the batch after
+ * {@code claimTimeoutMillis} and release what they got, which is counted by
+ * the {@link Starvation} counter, and not in the object throughput. Pools
+ * without timeouts are refused in that configuration, since they would hang.
+ */
+@State(Scope.Benchmark)
+public class BatchClaim
+{
+  @Param({
+      "StormpotBlazePool",
+      "Furious",
+      "CommonsPool2",
+      "CommonsPoolGeneric",
+      "CommonsPoolStack",
+      "ViburObjectPool",
+      "EasyPool",
+      "ConcurrentBag",
+      "ArrayBlockingQueue",
+      "ReferenceBitmap",
+      "ReferenceRingBuffer",
+      "ReferenceStriped"})
+  public String pool;
+
+  @Param({"64"})
+  public int poolSize;
+
+  @Param({"1", "4", "16", "64"})
+  public int batchSize;
+
+  @Param({"10"})
+  public long claimTimeoutMillis;
+
+  private PoolAdapter adapter;
+  private boolean timed;
+
+  @Setup
+  public void preparePool(BenchmarkParams params) throws Exception {
+    if (batchSize > poolSize) {
+      throw new IllegalArgumentException("The batchSize cannot be greater than the poolSize");
+    }
+    adapter = PoolAdapters.create(pool);
+    timed = adapter.supportsTimeouts();
+    if (!timed && !adapter.supportsBulk() && batchSize * params.getThreads() > poolSize) {
+      throw new IllegalArgumentException(pool + " has no claim timeouts, and could deadlock with " +
+          params.getThreads() + " threads claiming batches of " + batchSize + " from a pool of " + poolSize);
+    }
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void batch(Batch batch, Objects objects, Starvation starvation) throws Exception {
+    Object[] objs = batch.objs;
+    if (timed) {
+      if (!adapter.claimAll(objs, batchSize, claimTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        starvation.timeouts++;
+        return;
+      }
+    } else {
+      adapter.claimAll(objs, batchSize);
+    }
+    adapter.releaseAll(objs, batchSize);
+    objects.objects += batchSize;
+  }
+
+  @State(Scope.Thread)
+  public static class Batch {
+    private Object[] objs;
+
+    @Setup
+    public void setUp(BatchClaim benchmark) {
+      objs = new Object[benchmark.batchSize];
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Objects {
+    public long objects;
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Starvation {
+    public long timeouts;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Like {@link ClaimRelease}, but holds on to each claimed object for the
+ * {@code cost.of.usage}, and sizes the pool relative to the number of benchmark
+ * threads, so that the pools can be exhausted and claims have to wait.
+ *
+ * The time spent in claim is reported by the {@link ClaimWait} counters, which
+ * are only available in the throughput and average time modes.
+ */
+@State(Scope.Benchmark)
+public class ClaimHoldRelease
+{
+  @Param({
+      "StormpotBlazePool",
+      "Furious",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "EasyPool",
+      "ConcurrentBag",
+      "ArrayBlockingQueue",
+      "ReferenceBitmap",
+      "ReferenceRingBuffer",
+      "ReferenceStriped"})
+  public String pool;
+
+  @Param({"0.5", "1", "2"})
+  public double poolSizePerThread;
+
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool(BenchmarkParams params) throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.create(Math.max(1, (int) Math.round(params.getThreads() * poolSizePerThread)));
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void cycle(ClaimWait wait) throws Exception {
+    long start = System.nanoTime();
+    Object obj = adapter.claim();
+    wait.claimWaitNanos += System.nanoTime() - start;
+    wait.claims++;
+    Costs.expendUsage();
+    adapter.release(obj);
+  }
+
+  /**
+   * The counters are summed across all threads, so the average claim latency
+   * is {@code claimWaitNanos / claims}.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class ClaimWait {
+    public long claims;
+    public long claimWaitNanos;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      claims = 0;
+      claimWaitNanos = 0;
+    }
+  }
+}
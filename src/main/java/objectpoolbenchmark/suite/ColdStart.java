@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long a freshly built pool takes to get going, which the other
+ * benchmarks hide by building the pool in their setup, and by warming up.
+ *
+ * Every measurement builds a new pool, and times it from the start of the
+ * build until:
+ * <ul>
+ *   <li>{@code firstClaim}: the first object has been claimed,</li>
+ *   <li>{@code fullPool}: all {@code poolSize} objects have been claimed at
+ *   the same time,</li>
+ *   <li>{@code firstRequests}: the first {@code requests} claim, use, release
+ *   cycles, spread across {@code clients} threads, have completed.</li>
+ * </ul>
+ *
+ * Each fork only does a single measurement, so with {@code jvm} set to
+ * {@code cold}, it includes the class loading, interpretation and compilation
+ * of a JVM that has not used the pool before. With {@code jvm} set to
+ * {@code warm}, pools of the same kind are built and used in the setup first,
+ * so only the startup strategy of the pool itself is measured.
+ *
+ * The allocations cost 1ms by default, since pools are not slow to start when
+ * their objects are free. Giving other costs with {@code -jvmArgs} replaces
+ * that default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgs = "-Dcost.of.allocation=1ms")
+@Threads(1)
+public class ColdStart
+{
+  private static final int WARM_UP_POOLS = 20;
+
+  @Param({
+      "StormpotBlazePool",
+      "Furious",
+      "CommonsPool2",
+      "CommonsPoolGeneric",
+      "CommonsPoolStack",
+      "ViburObjectPool",
+      "EasyPool",
+      "ConcurrentBag",
+      "ArrayBlockingQueue",
+      "ReferenceBitmap",
+      "ReferenceRingBuffer",
+      "ReferenceStriped"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"cold", "warm"})
+  public String jvm;
+
+  @Param({"4"})
+  public int clients;
+
+  @Param({"2000"})
+  public int requests;
+
+  private ExecutorService clientThreads;
+  private PoolAdapter adapter;
+  private Object[] objs;
+  private int claimed;
+
+  @Setup(Level.Trial)
+  public void prepareClients() throws Exception {
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(clients, r -> {
+      Thread thread = new Thread(r, "cold-start-client");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.prestartAllCoreThreads();
+    clientThreads = executor;
+    objs = new Object[poolSize];
+
+    switch (jvm) {
+      case "cold":
+        break;
+      case "warm":
+        for (int i = 0; i < WARM_UP_POOLS; i++) {
+          buildPool();
+          claimAll();
+          releaseAll();
+          serveRequests();
+          adapter.shutdown();
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown jvm '" + jvm + "', expected cold or warm");
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDownPool() throws Exception {
+    releaseAll();
+    adapter.shutdown();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownClients() {
+    clientThreads.shutdownNow();
+  }
+
+  @Benchmark
+  public void firstClaim() throws Exception {
+    buildPool();
+    objs[claimed++] = adapter.claim();
+  }
+
+  @Benchmark
+  public void fullPool() throws Exception {
+    buildPool();
+    claimAll();
+  }
+
+  @Benchmark
+  public void firstRequests() throws Exception {
+    buildPool();
+    serveRequests();
+  }
+
+  private void buildPool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.create(poolSize);
+  }
+
+  private void claimAll() throws Exception {
+    adapter.claimAll(objs, poolSize);
+    claimed = poolSize;
+  }
+
+  private void releaseAll() throws Exception {
+    adapter.releaseAll(objs, claimed);
+    claimed = 0;
+  }
+
+  private void serveRequests() throws Exception {
+    List<Future<?>> futures = new ArrayList<>(clients);
+    for (int i = 0; i < clients; i++) {
+      int count = requests / clients + (i < requests % clients ? 1 : 0);
+      futures.add(clientThreads.submit(() -> {
+        for (int j = 0; j < count; j++) {
+          Object obj = adapter.claim();
+          Costs.expendUsage();
+          adapter.release(obj);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+  }
+}
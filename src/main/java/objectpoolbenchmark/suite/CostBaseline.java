@@ -32,4 +32,9 @@ public class CostBaseline {
   public void validationCostBaseline() {
     Costs.expendValidation();
   }
+
+  @Benchmark
+  public void usageCostBaseline() {
+    Costs.expendUsage();
+  }
 }
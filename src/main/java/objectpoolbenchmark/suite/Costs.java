@@ -15,97 +15,233 @@
  */
 package objectpoolbenchmark.suite;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleUnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.math3.distribution.NormalDistribution;
 import org.openjdk.jmh.infra.Blackhole;
 
+/**
+ * The costs of allocating, deallocating, validating and using objects, as
+ * given by the {@code cost.of.*} system properties.
+ *
+ * A cost is either a fixed amount, like {@code 100cpu}, or drawn from a
+ * distribution, like {@code exponential(100)cpu}. Distributions are turned
+ * into a table of {@value Cost#TABLE_SIZE} evenly spaced quantiles up front,
+ * so drawing a cost is a random table lookup, that does not allocate, and
+ * takes the same time for every distribution. The last entry of the table
+ * stands for the top 1/{@value Cost#TABLE_SIZE} of the distribution, which
+ * gets a table of its own, and so on for {@value Cost#TAIL_LEVELS} levels, so
+ * the tails of the exponential and lognormal distributions are sampled up to
+ * about one in 2^48 rather than cut off at p99.99.
+ */
 public class Costs {
-  private static final long allocationCost;
-  private static final CostUnit allocationCostUnit;
-  private static final long deallocationCost;
-  private static final CostUnit deallocationCostUnit;
-  private static final long validationCost;
-  private static final CostUnit validationCostUnit;
-
-  static {
-    Cost cost;
-    cost = Cost.getCost("cost.of.allocation");
-    if (cost != null) {
-      allocationCost = cost.value;
-      allocationCostUnit = cost.unit;
-    } else {
-      allocationCost = 0;
-      allocationCostUnit = null;
-    }
-
-    cost = Cost.getCost("cost.of.deallocation");
-    if (cost != null) {
-      deallocationCost = cost.value;
-      deallocationCostUnit = cost.unit;
-    } else {
-      deallocationCost = 0;
-      deallocationCostUnit = null;
-    }
-
-    cost = Cost.getCost("cost.of.validation");
-    if (cost != null) {
-      validationCost = cost.value;
-      validationCostUnit = cost.unit;
-    } else {
-      validationCost = 0;
-      validationCostUnit = null;
-    }
-  }
+  private static final Cost allocationCost = Cost.getCost("cost.of.allocation");
+  private static final Cost deallocationCost = Cost.getCost("cost.of.deallocation");
+  private static final Cost validationCost = Cost.getCost("cost.of.validation");
+  private static final Cost usageCost = Cost.getCost("cost.of.usage");
 
   public static void expendAllocation() {
-    if (allocationCost > 0) {
-      allocationCostUnit.spend(allocationCost);
+    if (allocationCost != null) {
+      allocationCost.spend();
     }
   }
 
   public static void expendDeallocation() {
-    if (deallocationCost > 0) {
-      deallocationCostUnit.spend(deallocationCost);
+    if (deallocationCost != null) {
+      deallocationCost.spend();
     }
   }
 
   public static void expendValidation() {
-    if (validationCost > 0) {
-      validationCostUnit.spend(validationCost);
+    if (validationCost != null) {
+      validationCost.spend();
+    }
+  }
+
+  public static void expendUsage() {
+    if (usageCost != null) {
+      usageCost.spend();
     }
   }
 
   private static class Cost {
+    private static final int TABLE_SIZE = 4096;
+    private static final int TAIL_LEVELS = 4;
     private static final Pattern format = Pattern.compile("(\\d+)(\\w+)");
+    private static final Pattern distributionFormat = Pattern.compile("(\\w+)\\((.*)\\)(\\w+)");
     public long value;
+    public long[][] tables;
     public CostUnit unit;
 
+    public void spend() {
+      long units = tables == null ? value : draw(tables);
+      if (units > 0) {
+        unit.spend(units);
+      }
+    }
+
+    /**
+     * Draw from the table of the first level, and move on to the table of the
+     * next level whenever the last entry is drawn.
+     */
+    private static long draw(long[][] tables) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int level = 0;
+      int index;
+      while ((index = random.nextInt() & (TABLE_SIZE - 1)) == TABLE_SIZE - 1 && level < tables.length - 1) {
+        level++;
+      }
+      return tables[level][index];
+    }
+
     public static Cost getCost(String propertyName) {
       String unparsed = System.getProperty(propertyName);
       if (unparsed == null || unparsed.trim().length() == 0) {
         return null;
       }
 
-      Matcher matcher = format.matcher(unparsed);
+      Matcher matcher = distributionFormat.matcher(unparsed.trim());
+      if (matcher.matches()) {
+        Cost cost = new Cost();
+        cost.unit = parseUnit(matcher.group(3), unparsed, propertyName);
+        cost.tables = quantiles(matcher.group(1), matcher.group(2), unparsed, propertyName);
+        return cost;
+      }
+
+      matcher = format.matcher(unparsed);
       if (matcher.find()) {
-        String valueStr = matcher.group(1);
-        String unitStr = matcher.group(2).toLowerCase();
-        CostUnit unit;
-        switch (unitStr) {
-          case "cpu": unit = CostUnit.CPU; break;
-          case "ms": unit = CostUnit.SLEEP; break;
-          default: throw new AssertionError(
-              "Unknown unit '" + unitStr + "' in '" + unparsed + "' for " + propertyName);
-        }
         Cost cost = new Cost();
-        cost.value = Long.parseLong(valueStr);
-        cost.unit = unit;
+        cost.value = Long.parseLong(matcher.group(1));
+        cost.unit = parseUnit(matcher.group(2), unparsed, propertyName);
         return cost;
       }
 
       return null;
     }
+
+    private static CostUnit parseUnit(String unitStr, String unparsed, String propertyName) {
+      switch (unitStr.toLowerCase()) {
+        case "cpu": return CostUnit.CPU;
+        case "ms": return CostUnit.SLEEP;
+        default: throw new AssertionError(
+            "Unknown unit '" + unitStr + "' in '" + unparsed + "' for " + propertyName);
+      }
+    }
+
+    /**
+     * Compute the tables of quantiles for the given distribution, where the
+     * table of each level covers the top 1/{@value #TABLE_SIZE} of the level
+     * before it. The distribution is one of:
+     * <ul>
+     *   <li>{@code uniform(min,max)}</li>
+     *   <li>{@code exponential(mean)}</li>
+     *   <li>{@code lognormal(median,sigma)}, where sigma is the standard
+     *   deviation of the logarithm of the cost</li>
+     *   <li>{@code bimodal(fast,slow,p)}, which is the slow cost with
+     *   probability p, and the fast cost otherwise</li>
+     *   <li>{@code histogram(file)}, which replays the costs recorded in the
+     *   file, one per line, optionally followed by how many times it was
+     *   recorded</li>
+     * </ul>
+     */
+    private static long[][] quantiles(String distribution, String arguments, String unparsed, String propertyName) {
+      String[] args = arguments.split(",");
+      DoubleUnaryOperator inverseCdf;
+      switch (distribution.toLowerCase()) {
+        case "uniform": {
+          double min = argument(args, 0, 2, unparsed, propertyName);
+          double max = argument(args, 1, 2, unparsed, propertyName);
+          inverseCdf = q -> min + q * (max - min);
+          break;
+        }
+        case "exponential": {
+          double mean = argument(args, 0, 1, unparsed, propertyName);
+          inverseCdf = q -> -mean * Math.log(1 - q);
+          break;
+        }
+        case "lognormal": {
+          double median = argument(args, 0, 2, unparsed, propertyName);
+          double sigma = argument(args, 1, 2, unparsed, propertyName);
+          NormalDistribution normal = new NormalDistribution();
+          inverseCdf = q -> median * Math.exp(sigma * normal.inverseCumulativeProbability(q));
+          break;
+        }
+        case "bimodal": {
+          double fast = argument(args, 0, 3, unparsed, propertyName);
+          double slow = argument(args, 1, 3, unparsed, propertyName);
+          double p = argument(args, 2, 3, unparsed, propertyName);
+          inverseCdf = q -> q < 1 - p ? fast : slow;
+          break;
+        }
+        case "histogram":
+          inverseCdf = histogram(arguments.trim(), unparsed, propertyName);
+          break;
+        default: throw new AssertionError(
+            "Unknown distribution '" + distribution + "' in '" + unparsed + "' for " + propertyName);
+      }
+      long[][] tables = new long[TAIL_LEVELS][TABLE_SIZE];
+      double levelSize = 1;
+      for (long[] table : tables) {
+        double levelStart = 1 - levelSize;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+          double q = levelStart + (i + 0.5) / TABLE_SIZE * levelSize;
+          table[i] = Math.max(0, Math.round(inverseCdf.applyAsDouble(q)));
+        }
+        levelSize /= TABLE_SIZE;
+      }
+      return tables;
+    }
+
+    private static double argument(String[] args, int index, int count, String unparsed, String propertyName) {
+      if (args.length != count) {
+        throw new AssertionError("Expected " + count + " arguments in '" + unparsed + "' for " + propertyName);
+      }
+      return Double.parseDouble(args[index].trim());
+    }
+
+    private static DoubleUnaryOperator histogram(String file, String unparsed, String propertyName) {
+      List<long[]> buckets = new ArrayList<>();
+      long total = 0;
+      try {
+        for (String line : Files.readAllLines(Paths.get(file))) {
+          line = line.trim();
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          String[] columns = line.split("[\\s,]+");
+          long value = Long.parseLong(columns[0]);
+          long count = columns.length > 1 ? Long.parseLong(columns[1]) : 1;
+          buckets.add(new long[] {value, count});
+          total += count;
+        }
+      } catch (IOException e) {
+        throw new AssertionError("Cannot read '" + file + "' in '" + unparsed + "' for " + propertyName, e);
+      }
+      if (total == 0) {
+        throw new AssertionError("No costs in '" + file + "' in '" + unparsed + "' for " + propertyName);
+      }
+      buckets.sort((a, b) -> Long.compare(a[0], b[0]));
+      long totalCount = total;
+      return q -> {
+        double rank = Math.ceil(q * totalCount);
+        long seen = 0;
+        for (long[] bucket : buckets) {
+          seen += bucket[1];
+          if (seen >= rank) {
+            return bucket[0];
+          }
+        }
+        return buckets.get(buckets.size() - 1)[0];
+      };
+    }
   }
 
   private enum CostUnit {
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * Claims objects on some threads, and releases them on other threads, like an
+ * asynchronous pipeline that claims on an I/O thread and releases on a worker
+ * thread. This defeats the thread-local fast paths, such as the slot reuse in
+ * Stormpot and the thread list of the ConcurrentBag, which the
+ * {@link ClaimRelease} benchmarks always hit. Compare with those at the same
+ * total number of threads.
+ *
+ * In the {@code fanOut} group, one thread claims, and three threads release.
+ * In the {@code fanIn} group, it is the other way around. The claimed objects
+ * are handed over through a {@code mailbox}, an array of slots that are filled
+ * and emptied with CAS, which is about the cheapest handoff there is, or
+ * through a {@code queue}, a {@link LinkedBlockingQueue} like the work queue of
+ * a thread pool.
+ *
+ * The claims use timeouts, so the claiming threads can notice the end of an
+ * iteration, after the releasing threads have stopped, and pools without claim
+ * timeouts are not supported. Objects left in the handoff at the end of an
+ * iteration are released.
+ */
+@State(Scope.Group)
+public class CrossThreadRelease
+{
+  private static final long CLAIM_TIMEOUT_MILLIS = 10;
+  private static final int SPINS = 64;
+
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "ConcurrentBag",
+      "ArrayBlockingQueue",
+      "ReferenceBitmap",
+      "ReferenceRingBuffer",
+      "ReferenceStriped"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"mailbox", "queue"})
+  public String handoff;
+
+  private PoolAdapter adapter;
+  private Handoff objects;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsTimeouts()) {
+      throw new IllegalArgumentException(pool + " does not support claim timeouts");
+    }
+    adapter.create(poolSize);
+    switch (handoff) {
+      case "mailbox":
+        objects = new Mailbox(poolSize);
+        break;
+      case "queue":
+        objects = new QueueHandoff();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown handoff '" + handoff + "', expected mailbox or queue");
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void releaseLeftovers() throws Exception {
+    Object obj;
+    while ((obj = objects.poll()) != null) {
+      adapter.release(obj);
+    }
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  @Group("fanOut")
+  @GroupThreads(1)
+  public void fanOutClaim(Control control) throws Exception {
+    claim(control);
+  }
+
+  @Benchmark
+  @Group("fanOut")
+  @GroupThreads(3)
+  public void fanOutRelease(Control control) throws Exception {
+    release(control);
+  }
+
+  @Benchmark
+  @Group("fanIn")
+  @GroupThreads(3)
+  public void fanInClaim(Control control) throws Exception {
+    claim(control);
+  }
+
+  @Benchmark
+  @Group("fanIn")
+  @GroupThreads(1)
+  public void fanInRelease(Control control) throws Exception {
+    release(control);
+  }
+
+  private void claim(Control control) throws Exception {
+    Object obj;
+    while ((obj = adapter.claim(CLAIM_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+      if (control.stopMeasurement) {
+        return;
+      }
+    }
+    Costs.expendUsage();
+    objects.offer(obj);
+  }
+
+  private void release(Control control) throws Exception {
+    Object obj;
+    int spins = 0;
+    while ((obj = objects.poll()) == null) {
+      if (control.stopMeasurement) {
+        return;
+      }
+      if (spins++ < SPINS) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    }
+    adapter.release(obj);
+  }
+
+  /**
+   * Never holds more than the pool size, so offering always succeeds.
+   */
+  private interface Handoff {
+    void offer(Object obj);
+
+    Object poll();
+  }
+
+  private static final class Mailbox implements Handoff {
+    private final AtomicReferenceArray<Object> slots;
+
+    Mailbox(int size) {
+      slots = new AtomicReferenceArray<>(size);
+    }
+
+    @Override
+    public void offer(Object obj) {
+      int length = slots.length();
+      int start = ThreadLocalRandom.current().nextInt(length);
+      while (true) {
+        for (int i = 0; i < length; i++) {
+          int index = start + i < length ? start + i : start + i - length;
+          if (slots.get(index) == null && slots.compareAndSet(index, null, obj)) {
+            return;
+          }
+        }
+      }
+    }
+
+    @Override
+    public Object poll() {
+      int length = slots.length();
+      int start = ThreadLocalRandom.current().nextInt(length);
+      for (int i = 0; i < length; i++) {
+        int index = start + i < length ? start + i : start + i - length;
+        Object obj = slots.get(index);
+        if (obj != null && slots.compareAndSet(index, obj, null)) {
+          return obj;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final class QueueHandoff implements Handoff {
+    private final Queue<Object> queue = new LinkedBlockingQueue<>();
+
+    @Override
+    public void offer(Object obj) {
+      queue.offer(obj);
+    }
+
+    @Override
+    public Object poll() {
+      return queue.poll();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+
+import objectpoolbenchmark.database.ConnectionFactory;
+import objectpoolbenchmark.database.FakeConnection;
+import objectpoolbenchmark.database.FakeDatabase;
+import objectpoolbenchmark.database.Latency;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Uses the pools the way a connection pool is used: every request claims a
+ * {@link FakeConnection}, does a round-trip over loopback TCP to an in-process
+ * {@link FakeDatabase}, and releases the connection again.
+ *
+ * Connections occasionally fail validation, at the
+ * {@code validationFailureRate}, and must then be replaced by the pool. How
+ * many were replaced is reported by the {@link Replacements} counter, which is
+ * only available in the throughput and average time modes.
+ */
+@State(Scope.Benchmark)
+public class DatabaseRequest
+{
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "ConcurrentBag"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"fixed", "exponential"})
+  public String latency;
+
+  @Param({"0", "50"})
+  public long latencyMicros;
+
+  @Param({"0.001"})
+  public double validationFailureRate;
+
+  private FakeDatabase database;
+  private ConnectionFactory connections;
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsResources()) {
+      throw new IllegalArgumentException(pool + " cannot hold connections");
+    }
+    database = new FakeDatabase(Latency.of(latency, TimeUnit.MICROSECONDS.toNanos(latencyMicros)));
+    connections = new ConnectionFactory(database, validationFailureRate);
+    adapter.setResourceFactory(connections);
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+    database.close();
+  }
+
+  @Benchmark
+  public long request(Replacements replacements) throws Exception {
+    Object obj = adapter.claim();
+    try {
+      FakeConnection connection = (FakeConnection) adapter.resource(obj);
+      return connection.query(replacements.nextQuery++);
+    } finally {
+      adapter.release(obj);
+    }
+  }
+
+  /**
+   * The connections are replaced by the pools, so the number of replaced
+   * connections can only be counted for the pool as a whole. It is reported
+   * by the first benchmark thread.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Replacements {
+    public long replacedConnections;
+    private long nextQuery;
+    private ConnectionFactory connections;
+    private long failedValidationsAtStart;
+
+    @Setup(Level.Iteration)
+    public void start(DatabaseRequest benchmark, ThreadParams threadParams) {
+      connections = threadParams.getThreadIndex() == 0 ? benchmark.connections : null;
+      failedValidationsAtStart = connections == null ? 0 : connections.failedValidations();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+      replacedConnections = connections == null
+          ? 0 : connections.failedValidations() - failedValidationsAtStart;
+    }
+  }
+}
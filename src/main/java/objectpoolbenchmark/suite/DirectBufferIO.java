@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Pools NIO buffers, and writes each claimed buffer to a {@code file} or a
+ * {@code pipe}, and reads it back into the same buffer, before releasing it.
+ *
+ * The pools that can hold resources hold {@link PayloadFactory payloads} of
+ * {@code bufferSize} bytes, the {@code ReferenceSlab} pool slices its buffers
+ * from a single direct or heap buffer, and the {@code Allocation} "pool"
+ * allocates a new buffer for every cycle. Direct buffers are read and written
+ * by the channels without copying, while heap buffers are copied through a
+ * temporary direct buffer, so compare the {@code direct} and {@code heap} payloads to
+ * see if the pooling costs more than the copying saves.
+ *
+ * Run with {@code -prof objectpoolbenchmark.profile.NativeMemoryProfiler} to
+ * see the native memory footprint.
+ */
+@State(Scope.Benchmark)
+public class DirectBufferIO
+{
+  @Param({
+      "Allocation",
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "ConcurrentBag",
+      "ReferenceSlab"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"direct", "heap"})
+  public String payload;
+
+  @Param({"4096", "65536", "1048576"})
+  public int bufferSize;
+
+  @Param({"file", "pipe"})
+  public String channel;
+
+  private PayloadFactory payloads;
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    payloads = new PayloadFactory(payload, bufferSize);
+    if (pool.equals("Allocation")) {
+      return;
+    }
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsResources()) {
+      throw new IllegalArgumentException(pool + " cannot hold buffers");
+    }
+    adapter.setResourceFactory(payloads);
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    if (adapter != null) {
+      adapter.shutdown();
+    }
+  }
+
+  @Benchmark
+  public Object cycle(Channels channels) throws Exception {
+    if (adapter == null) {
+      ByteBuffer buffer = buffer(payloads.allocate());
+      channels.echo(buffer);
+      return buffer;
+    }
+    Object obj = adapter.claim();
+    channels.echo(buffer(adapter.resource(obj)));
+    adapter.release(obj);
+    return obj;
+  }
+
+  private static ByteBuffer buffer(Object payload) {
+    PayloadFactory.touch(payload);
+    return payload instanceof byte[] ? ByteBuffer.wrap((byte[]) payload) : (ByteBuffer) payload;
+  }
+
+  /**
+   * The channels of each benchmark thread. The pipe is non-blocking, and the
+   * buffer is written and read back in turns, so buffers larger than the pipe
+   * capacity do not block.
+   */
+  @State(Scope.Thread)
+  public static class Channels {
+    private Path file;
+    private FileChannel fileChannel;
+    private Pipe pipe;
+    private boolean usePipe;
+
+    @Setup
+    public void open(DirectBufferIO benchmark) throws IOException {
+      switch (benchmark.channel) {
+        case "file":
+          file = Files.createTempFile("direct-buffer-io", ".bin");
+          fileChannel = FileChannel.open(file,
+              StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+          break;
+        case "pipe":
+          usePipe = true;
+          pipe = Pipe.open();
+          pipe.sink().configureBlocking(false);
+          pipe.source().configureBlocking(false);
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Unknown channel '" + benchmark.channel + "', expected file or pipe");
+      }
+    }
+
+    @TearDown
+    public void close() throws IOException {
+      if (usePipe) {
+        pipe.sink().close();
+        pipe.source().close();
+      } else {
+        fileChannel.close();
+      }
+    }
+
+    void echo(ByteBuffer buffer) throws IOException {
+      int size = buffer.capacity();
+      if (usePipe) {
+        int written = 0;
+        int read = 0;
+        while (read < size) {
+          if (written < size) {
+            buffer.limit(size).position(written);
+            written += pipe.sink().write(buffer);
+          }
+          buffer.limit(written).position(read);
+          read += pipe.source().read(buffer);
+        }
+      } else {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          fileChannel.write(buffer, buffer.position());
+        }
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          if (fileChannel.read(buffer, buffer.position()) < 0) {
+            throw new IOException("Unexpected end of " + file);
+          }
+        }
+      }
+    }
+  }
+}
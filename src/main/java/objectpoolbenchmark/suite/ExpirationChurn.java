@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Claim/release cycles against pools where objects keep expiring, as decided
+ * by the {@link ExpirationPolicy} given by the {@code expireBy},
+ * {@code expireFraction} and {@code expireAfter} parameters. Combine with a
+ * non-zero {@code cost.of.allocation} to see how reallocation, in the
+ * background or in the claiming thread, affects the claim throughput and
+ * latency.
+ */
+@State(Scope.Benchmark)
+public class ExpirationChurn
+{
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"age", "claims", "random"})
+  public String expireBy;
+
+  @Param({"0.01"})
+  public double expireFraction;
+
+  /**
+   * Milliseconds for {@code age}, number of claims for {@code claims}, and
+   * ignored for {@code random}.
+   */
+  @Param({"100"})
+  public long expireAfter;
+
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.setExpirationPolicy(new ExpirationPolicy(expireBy, expireFraction, expireAfter));
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void cycle() throws Exception {
+    Object obj = adapter.claim();
+    adapter.release(obj);
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when pooled objects expire, for the pools that support expiration.
+ *
+ * <ul>
+ *   <li>{@code age}: the given fraction of the objects expire once they are
+ *   {@code after} milliseconds old.</li>
+ *   <li>{@code claims}: the given fraction of the objects expire once they
+ *   have been claimed {@code after} times.</li>
+ *   <li>{@code random}: every check expires the object with a probability
+ *   of the given fraction.</li>
+ * </ul>
+ *
+ * Whether an object is mortal is decided once, with {@link #isMortal()}, when
+ * the object is allocated.
+ */
+public final class ExpirationPolicy {
+  private enum By {
+    AGE, CLAIMS, RANDOM
+  }
+
+  private final By by;
+  private final double fraction;
+  private final long after;
+
+  public ExpirationPolicy(String by, double fraction, long after) {
+    this.by = By.valueOf(by.toUpperCase());
+    this.fraction = fraction;
+    this.after = after;
+  }
+
+  public boolean isMortal() {
+    return by == By.RANDOM || ThreadLocalRandom.current().nextDouble() < fraction;
+  }
+
+  public boolean hasExpired(boolean mortal, long ageMillis, long claims) {
+    if (!mortal) {
+      return false;
+    }
+    switch (by) {
+      case AGE: return ageMillis >= after;
+      case CLAIMS: return claims >= after;
+      default: return ThreadLocalRandom.current().nextDouble() < fraction;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Claim/release cycles while the allocation, validation and deallocation of
+ * the pooled objects fail at the given rates, through the {@link Failures}.
+ *
+ * Claims that fail are retried until they succeed, like an application would,
+ * so the throughput and the sampled latency include the retries. The
+ * {@link Retries} counters show how many claims failed or timed out, which is
+ * the size of the retry storm, and how many failures were injected. They are
+ * only available in the throughput and average time modes.
+ */
+@State(Scope.Benchmark)
+public class FailureInjection
+{
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "CommonsPoolGeneric",
+      "CommonsPoolStack",
+      "ViburObjectPool",
+      "EasyPool",
+      "ConcurrentBag"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"0", "0.5"})
+  public double allocationFailureRate;
+
+  @Param({"0.001", "0.01", "0.1"})
+  public double validationFailureRate;
+
+  @Param({"0.5"})
+  public double deallocationFailureRate;
+
+  @Param({"1000"})
+  public long claimTimeoutMillis;
+
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsFailureInjection()) {
+      throw new IllegalArgumentException(pool + " does not support failure injection");
+    }
+    adapter.create(poolSize);
+    Failures.setRates(allocationFailureRate, validationFailureRate, deallocationFailureRate);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    Failures.disable();
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void cycle(Retries retries) throws Exception {
+    Object obj = null;
+    while (obj == null) {
+      try {
+        if (adapter.supportsTimeouts()) {
+          obj = adapter.claim(claimTimeoutMillis, TimeUnit.MILLISECONDS);
+          if (obj == null) {
+            retries.timeouts++;
+          }
+        } else {
+          obj = adapter.claim();
+        }
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Exception e) {
+        retries.failedClaims++;
+      }
+    }
+    adapter.release(obj);
+  }
+
+  /**
+   * The failed claims and timeouts are counted by every thread. The injected
+   * failures can only be counted for the pool as a whole, and are reported by
+   * the first benchmark thread.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Retries {
+    public long failedClaims;
+    public long timeouts;
+    public long injectedAllocationFailures;
+    public long injectedValidationFailures;
+    public long injectedDeallocationFailures;
+    private boolean reporting;
+    private long allocationFailuresAtStart;
+    private long validationFailuresAtStart;
+    private long deallocationFailuresAtStart;
+
+    @Setup(Level.Iteration)
+    public void start(ThreadParams threadParams) {
+      failedClaims = 0;
+      timeouts = 0;
+      reporting = threadParams.getThreadIndex() == 0;
+      allocationFailuresAtStart = Failures.allocationFailures();
+      validationFailuresAtStart = Failures.validationFailures();
+      deallocationFailuresAtStart = Failures.deallocationFailures();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+      if (reporting) {
+        injectedAllocationFailures = Failures.allocationFailures() - allocationFailuresAtStart;
+        injectedValidationFailures = Failures.validationFailures() - validationFailuresAtStart;
+        injectedDeallocationFailures = Failures.deallocationFailures() - deallocationFailuresAtStart;
+      }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes a pool to get back to its full size, after a
+ * burst of {@link Failures}.
+ *
+ * Before every invocation, the pool is churned for {@code burstMillis} while
+ * every validation fails, and allocations and deallocations fail at the burst
+ * rates. Then the failures stop, and the benchmark measures the time until all
+ * {@code poolSize} objects can be claimed at the same time. Pools that do not
+ * get there within {@code recoveryTimeoutMillis} are counted as
+ * {@code unrecovered} by the {@link Recovery} counters.
+ *
+ * Pools without claim timeouts are claimed from a helper thread, which is
+ * abandoned if the claim does not complete in time. Whatever that claim
+ * eventually gets is then lost to the pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+public class FailureRecovery
+{
+  private static final long BURST_CLAIM_TIMEOUT_MILLIS = 100;
+
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "CommonsPoolGeneric",
+      "CommonsPoolStack",
+      "ViburObjectPool",
+      "EasyPool",
+      "ConcurrentBag"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"100"})
+  public long burstMillis;
+
+  @Param({"0.5", "1"})
+  public double burstAllocationFailureRate;
+
+  @Param({"0.5"})
+  public double burstDeallocationFailureRate;
+
+  @Param({"10000"})
+  public long recoveryTimeoutMillis;
+
+  private PoolAdapter adapter;
+  private ExecutorService claimer;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsFailureInjection()) {
+      throw new IllegalArgumentException(pool + " does not support failure injection");
+    }
+    adapter.create(poolSize);
+    claimer = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "failure-recovery-claimer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    Failures.disable();
+    claimer.shutdownNow();
+    adapter.shutdown();
+  }
+
+  @Setup(Level.Invocation)
+  public void burst() throws Exception {
+    Failures.setRates(burstAllocationFailureRate, 1, burstDeallocationFailureRate);
+    try {
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(burstMillis);
+      while (System.nanoTime() < end) {
+        try {
+          Object obj = claim(BURST_CLAIM_TIMEOUT_MILLIS);
+          if (obj != null) {
+            adapter.release(obj);
+          }
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Exception e) {
+          // The failures are the point of the burst.
+        }
+      }
+    } finally {
+      Failures.disable();
+    }
+  }
+
+  @Benchmark
+  public void recover(Recovery recovery) throws Exception {
+    Object[] objs = new Object[poolSize];
+    int claimed = 0;
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(recoveryTimeoutMillis);
+    long remaining;
+    while (claimed < poolSize && (remaining = deadline - System.nanoTime()) > 0) {
+      try {
+        Object obj = claim(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+        if (obj != null) {
+          objs[claimed++] = obj;
+        }
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Exception e) {
+        recovery.failedClaims++;
+      }
+    }
+    if (claimed < poolSize) {
+      recovery.unrecovered++;
+    }
+    for (int i = 0; i < claimed; i++) {
+      adapter.release(objs[i]);
+    }
+  }
+
+  private Object claim(long timeoutMillis) throws Exception {
+    if (adapter.supportsTimeouts()) {
+      return adapter.claim(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    Future<Object> claim = claimer.submit(() -> adapter.claim());
+    try {
+      return claim.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      claim.cancel(true);
+      return null;
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Recovery {
+    public long unrecovered;
+    public long failedClaims;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes allocation, validation and deallocation of pooled objects fail at
+ * configurable rates, so we can see how the pools cope with flaky resources.
+ *
+ * The failures are injected next to the {@link Costs} in the allocators,
+ * factories and adapters of the pools that
+ * {@link PoolAdapter#supportsFailureInjection() support it}. Failed
+ * allocations and deallocations throw an {@link InjectedFailure}, and failed
+ * validations report the object as invalid. No failures are injected until
+ * {@link #setRates(double, double, double)} is called.
+ */
+public final class Failures {
+  private static volatile double allocationRate;
+  private static volatile double validationRate;
+  private static volatile double deallocationRate;
+  private static final LongAdder allocationFailures = new LongAdder();
+  private static final LongAdder validationFailures = new LongAdder();
+  private static final LongAdder deallocationFailures = new LongAdder();
+
+  private Failures() {
+  }
+
+  /**
+   * Set the probabilities, from 0 to 1, of allocation, validation and
+   * deallocation failing.
+   */
+  public static void setRates(double allocation, double validation, double deallocation) {
+    allocationRate = allocation;
+    validationRate = validation;
+    deallocationRate = deallocation;
+  }
+
+  public static void disable() {
+    setRates(0, 0, 0);
+  }
+
+  public static void allocation() {
+    if (fails(allocationRate)) {
+      allocationFailures.increment();
+      throw new InjectedFailure("allocation");
+    }
+  }
+
+  /**
+   * Returns false if the object should be considered invalid.
+   */
+  public static boolean validation() {
+    if (fails(validationRate)) {
+      validationFailures.increment();
+      return false;
+    }
+    return true;
+  }
+
+  public static void deallocation() {
+    if (fails(deallocationRate)) {
+      deallocationFailures.increment();
+      throw new InjectedFailure("deallocation");
+    }
+  }
+
+  private static boolean fails(double rate) {
+    return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  public static long allocationFailures() {
+    return allocationFailures.sum();
+  }
+
+  public static long validationFailures() {
+    return validationFailures.sum();
+  }
+
+  public static long deallocationFailures() {
+    return deallocationFailures.sum();
+  }
+
+  /**
+   * Thrown by failed allocations and deallocations. It has no stack trace,
+   * so failing is cheap.
+   */
+  public static class InjectedFailure extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    InjectedFailure(String what) {
+      super("Injected " + what + " failure", null, false, false);
+    }
+  }
+}
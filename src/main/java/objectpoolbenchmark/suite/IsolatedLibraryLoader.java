@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Loads an adapter against a specific version of its pool library, taken
+ * from the local Maven repository, side by side with the version the
+ * benchmarks were built with.
+ *
+ * The classes in the package of the adapter, and the classes in the library
+ * jar, are loaded by this class loader itself. Everything else, such as the
+ * {@link PoolAdapter} interface and the {@link Costs}, is shared with the
+ * parent class loader, and so are any dependencies of the library.
+ *
+ * The adapters are compiled against the library version in the pom, so only
+ * versions with a compatible API can be loaded this way.
+ */
+final class IsolatedLibraryLoader extends URLClassLoader {
+  static {
+    registerAsParallelCapable();
+  }
+
+  private final String adapterPackage;
+  private final URLClassLoader library;
+
+  /**
+   * @param adapterClass The adapter to load against the library.
+   * @param coordinates The library as "groupId:artifactId:version".
+   */
+  IsolatedLibraryLoader(Class<?> adapterClass, String coordinates) {
+    super(new URL[] {jar(coordinates), codeLocation(adapterClass)}, adapterClass.getClassLoader());
+    adapterPackage = adapterClass.getPackageName() + ".";
+    library = new URLClassLoader(new URL[] {jar(coordinates)}, null);
+  }
+
+  /**
+   * The location of the jar of the given "groupId:artifactId:version" in the
+   * local Maven repository, which is {@code ~/.m2/repository} unless the
+   * {@code maven.repo.local} system property says otherwise.
+   */
+  private static URL jar(String coordinates) {
+    String[] parts = coordinates.split(":");
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Expected groupId:artifactId:version, but got " + coordinates);
+    }
+    String repository = System.getProperty(
+        "maven.repo.local", Paths.get(System.getProperty("user.home"), ".m2", "repository").toString());
+    Path jar = Paths.get(repository, parts[0].replace('.', '/'), parts[1], parts[2],
+        parts[1] + "-" + parts[2] + ".jar");
+    if (!Files.isRegularFile(jar)) {
+      throw new IllegalArgumentException(jar + " not found. Fetch it into the local Maven repository with "
+          + "'mvn dependency:get -Dartifact=" + coordinates + "'");
+    }
+    try {
+      return jar.toUri().toURL();
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static URL codeLocation(Class<?> cls) {
+    return cls.getProtectionDomain().getCodeSource().getLocation();
+  }
+
+  @Override
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    if (!isIsolated(name)) {
+      return super.loadClass(name, resolve);
+    }
+    synchronized (getClassLoadingLock(name)) {
+      Class<?> cls = findLoadedClass(name);
+      if (cls == null) {
+        cls = findClass(name);
+      }
+      if (resolve) {
+        resolveClass(cls);
+      }
+      return cls;
+    }
+  }
+
+  private boolean isIsolated(String name) {
+    return name.startsWith(adapterPackage)
+        || library.findResource(name.replace('.', '/') + ".class") != null;
+  }
+
+  /**
+   * Prefer the resources of the library jar, so the adapter finds the
+   * {@code pom.properties} of the library version it was loaded against.
+   */
+  @Override
+  public URL getResource(String name) {
+    URL url = library.findResource(name);
+    return url != null ? url : super.getResource(name);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      library.close();
+    } finally {
+      super.close();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import objectpoolbenchmark.openloop.LatencyHistogram;
+
+/**
+ * Collects the latency histograms that benchmarks record themselves, for
+ * latencies that JMH cannot measure, such as those of work that is handed to
+ * other threads. The benchmarks publish their histograms at the end of every
+ * iteration, and the {@link objectpoolbenchmark.profile.LatencyProfiler}
+ * reports their percentiles as results of that iteration.
+ *
+ * Percentiles must not be reported through {@code @AuxCounters}, since JMH
+ * sums those up across threads and iterations.
+ */
+public final class Latencies {
+  private static final Map<String, LatencyHistogram> histograms = new HashMap<>();
+
+  private Latencies() {
+  }
+
+  /**
+   * Add the given histogram to the named latencies of the current iteration.
+   */
+  public static synchronized void publish(String name, LatencyHistogram histogram) {
+    histograms.computeIfAbsent(name, n -> new LatencyHistogram()).add(histogram);
+  }
+
+  /**
+   * Take the latencies published since the last time.
+   */
+  public static synchronized Map<String, LatencyHistogram> drain() {
+    Map<String, LatencyHistogram> drained = new HashMap<>(histograms);
+    histograms.clear();
+    return drained;
+  }
+}
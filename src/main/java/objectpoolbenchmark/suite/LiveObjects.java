@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the pooled objects that are currently allocated, independently of
+ * what the pools themselves think, so that we can see how quickly a pool gets
+ * to a new size, and whether it over-allocates or leaks objects on the way.
+ *
+ * The objects are counted next to the {@link Costs} in the allocators,
+ * factories and adapters of the pools that
+ * {@link PoolAdapter#supportsResize() support resizing}. Allocations that
+ * fail are not counted, while deallocations are counted even when they fail,
+ * because the pools give up on the object either way.
+ */
+public final class LiveObjects {
+  private static final AtomicLong count = new AtomicLong();
+
+  private LiveObjects() {
+  }
+
+  public static void allocated() {
+    count.incrementAndGet();
+  }
+
+  public static void deallocated() {
+    count.decrementAndGet();
+  }
+
+  public static long count() {
+    return count.get();
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-local caching tier in front of another pool. Every thread has a
+ * magazine of a few objects: released objects go into the magazine of the
+ * releasing thread, and are claimed from there again by that thread, without
+ * touching the shared pool. Objects only go back to the shared pool when the
+ * magazine is full.
+ *
+ * The objects in the magazines of threads that are not claiming are lost to
+ * the other threads, so when a claim from the shared pool has not succeeded
+ * within {@value #STEAL_AFTER_MILLIS} ms, the claiming thread steals an object
+ * from the magazine of another thread instead. That is why the shared pool
+ * must support claim timeouts. Objects claimed from a magazine skip the
+ * validation of the shared pool.
+ *
+ * Wrap a pool in magazines by suffixing its name with
+ * {@value PoolAdapters#MAGAZINE_SUFFIX}, and optionally the number of objects
+ * per magazine, like "CommonsPool2+Magazine4".
+ */
+public class MagazineAdapter implements PoolAdapter {
+  private static final long STEAL_AFTER_MILLIS = 1;
+
+  private final PoolAdapter pool;
+  private final int magazineSize;
+  private final List<Magazine> magazines = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<Magazine> magazine = ThreadLocal.withInitial(this::newMagazine);
+  private final LongAdder steals = new LongAdder();
+  private final LongAdder stealNanos = new LongAdder();
+
+  public MagazineAdapter(PoolAdapter pool, int magazineSize) {
+    if (!pool.supportsTimeouts()) {
+      throw new IllegalArgumentException(pool.name() + " cannot have magazines, since it has no claim timeouts");
+    }
+    this.pool = pool;
+    this.magazineSize = magazineSize;
+  }
+
+  private Magazine newMagazine() {
+    Magazine magazine = new Magazine(magazineSize);
+    magazines.add(magazine);
+    return magazine;
+  }
+
+  @Override
+  public String name() {
+    return pool.name() + PoolAdapters.MAGAZINE_SUFFIX + magazineSize;
+  }
+
+  @Override
+  public String artifact() {
+    return pool.artifact();
+  }
+
+  @Override
+  public String version() {
+    return pool.version();
+  }
+
+  @Override
+  public void create(int poolSize) throws Exception {
+    pool.create(poolSize);
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    return claim(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) throws Exception {
+    Magazine own = magazine.get();
+    Object obj = own.take();
+    if (obj != null) {
+      return obj;
+    }
+    long start = System.nanoTime();
+    long timeoutNanos = unit.toNanos(timeout);
+    long remaining;
+    while ((remaining = timeoutNanos - (System.nanoTime() - start)) > 0) {
+      obj = pool.claim(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(STEAL_AFTER_MILLIS)), TimeUnit.NANOSECONDS);
+      if (obj != null) {
+        return obj;
+      }
+      for (Magazine other : magazines) {
+        if (other != own && (obj = other.take()) != null) {
+          steals.increment();
+          stealNanos.add(System.nanoTime() - start);
+          return obj;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void release(Object obj) throws Exception {
+    if (!magazine.get().put(obj)) {
+      pool.release(obj);
+    }
+  }
+
+  @Override
+  public void shutdown() throws Exception {
+    for (Magazine magazine : magazines) {
+      Object obj;
+      while ((obj = magazine.take()) != null) {
+        pool.release(obj);
+      }
+    }
+    pool.shutdown();
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return false;
+  }
+
+  /**
+   * The objects in the magazines count as claimed by the shared pool.
+   */
+  @Override
+  public boolean supportsOccupancy() {
+    return pool.supportsOccupancy();
+  }
+
+  @Override
+  public void sampleOccupancy(Occupancy occupancy) {
+    pool.sampleOccupancy(occupancy);
+  }
+
+  /**
+   * The number of objects that were stolen from the magazines of other
+   * threads.
+   */
+  public long steals() {
+    return steals.sum();
+  }
+
+  /**
+   * The total time the claims that ended up stealing spent on claiming.
+   */
+  public long stealNanos() {
+    return stealNanos.sum();
+  }
+
+  /**
+   * The slots are only filled by the owning thread, but can be emptied by any
+   * thread.
+   */
+  private static final class Magazine {
+    private final AtomicReferenceArray<Object> slots;
+
+    Magazine(int size) {
+      slots = new AtomicReferenceArray<>(size);
+    }
+
+    Object take() {
+      for (int i = 0; i < slots.length(); i++) {
+        Object obj = slots.get(i);
+        if (obj != null && slots.compareAndSet(i, obj, null)) {
+          return obj;
+        }
+      }
+      return null;
+    }
+
+    boolean put(Object obj) {
+      for (int i = 0; i < slots.length(); i++) {
+        if (slots.get(i) == null) {
+          slots.lazySet(i, obj);
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Shows what the thread-local caching of a {@link MagazineAdapter}, or of the
+ * pools that have their own, costs when the threads are imbalanced. Three
+ * {@code busy} threads claim, use and release objects all the time, while a
+ * {@code bursty} thread claims and releases an object every
+ * {@code burstIntervalMicros}. The pool only has room for the busy threads, so
+ * whatever the bursty thread keeps in its thread-local cache has to be stolen
+ * or waited for by the busy threads.
+ *
+ * The claims and claim wait time of each kind of thread, and how many objects
+ * the magazines had to steal, and how long the claims that stole took, are
+ * reported by the {@link BusyClaims} and {@link BurstyClaims} counters, which
+ * are only available in the throughput and average time modes.
+ */
+@State(Scope.Group)
+public class MagazineImbalance
+{
+  @Param({
+      "StormpotBlazePool",
+      "ConcurrentBag",
+      "CommonsPool2",
+      "CommonsPool2+Magazine4",
+      "ViburObjectPool",
+      "ViburObjectPool+Magazine4"})
+  public String pool;
+
+  @Param({"3"})
+  public int poolSize;
+
+  @Param({"1000"})
+  public long burstIntervalMicros;
+
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  @Group("imbalanced")
+  @GroupThreads(3)
+  public void busy(BusyClaims claims) throws Exception {
+    long start = System.nanoTime();
+    Object obj = adapter.claim();
+    claims.busyClaimWaitNanos += System.nanoTime() - start;
+    claims.busyClaims++;
+    Costs.expendUsage();
+    adapter.release(obj);
+  }
+
+  @Benchmark
+  @Group("imbalanced")
+  @GroupThreads(1)
+  public void bursty(BurstyClaims claims) throws Exception {
+    long start = System.nanoTime();
+    Object obj = adapter.claim();
+    claims.burstyClaimWaitNanos += System.nanoTime() - start;
+    claims.burstyClaims++;
+    Costs.expendUsage();
+    adapter.release(obj);
+    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(burstIntervalMicros));
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class BusyClaims {
+    public long busyClaims;
+    public long busyClaimWaitNanos;
+
+    @Setup(Level.Iteration)
+    public void start() {
+      busyClaims = 0;
+      busyClaimWaitNanos = 0;
+    }
+  }
+
+  /**
+   * Also reports the steals of the magazines, which can only be counted for
+   * the pool as a whole. The average time of the claims that stole is
+   * {@code stealNanos / steals}.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class BurstyClaims {
+    public long burstyClaims;
+    public long burstyClaimWaitNanos;
+    public long steals;
+    public long stealNanos;
+    private MagazineAdapter magazines;
+    private long stealsAtStart;
+    private long stealNanosAtStart;
+
+    @Setup(Level.Iteration)
+    public void start(MagazineImbalance benchmark) {
+      burstyClaims = 0;
+      burstyClaimWaitNanos = 0;
+      magazines = benchmark.adapter instanceof MagazineAdapter ? (MagazineAdapter) benchmark.adapter : null;
+      if (magazines != null) {
+        stealsAtStart = magazines.steals();
+        stealNanosAtStart = magazines.stealNanos();
+      }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+      if (magazines != null) {
+        steals = magazines.steals() - stealsAtStart;
+        stealNanos = magazines.stealNanos() - stealNanosAtStart;
+      }
+    }
+  }
+}
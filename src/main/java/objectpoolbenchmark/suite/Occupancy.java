@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+/**
+ * A sample of what is going on inside a pool, as far as the pool library
+ * exposes it, filled in by {@link PoolAdapter#sampleOccupancy(Occupancy)}.
+ * What the library does not expose is left at -1.
+ */
+public final class Occupancy {
+  /**
+   * Set this system property to true to make the pools record the metrics
+   * that they only keep when asked to, such as the allocator metrics of
+   * Stormpot. The {@link objectpoolbenchmark.profile.OccupancyProfiler} sets it
+   * in the benchmark JVM.
+   */
+  public static final String METRICS_PROPERTY = "pool.occupancy.metrics";
+
+  /** The objects that are currently claimed. */
+  public long claimed;
+  /** The objects that are allocated, and can be claimed right away. */
+  public long idle;
+  /** The threads that are waiting for an object. */
+  public long waiting;
+  /** The objects allocated by the pool so far. */
+  public long allocations;
+  /** The objects deallocated by the pool so far. */
+  public long deallocations;
+
+  public Occupancy() {
+    clear();
+  }
+
+  public static boolean isRecordingMetrics() {
+    return Boolean.getBoolean(METRICS_PROPERTY);
+  }
+
+  public void clear() {
+    claimed = -1;
+    idle = -1;
+    waiting = -1;
+    allocations = -1;
+    deallocations = -1;
+  }
+}
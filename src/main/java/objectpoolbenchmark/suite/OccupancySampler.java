@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Samples the {@link Occupancy} of a pool on a thread of its own, at a fixed
+ * interval, and sums the samples up until they are {@link #summarize()
+ * summarized}. The pool is looked up for every sample, so the sampler can be
+ * started before the benchmark has created its pool.
+ */
+public final class OccupancySampler extends Thread {
+  private final Supplier<PoolAdapter> pool;
+  private final long intervalNanos;
+  private final Occupancy occupancy = new Occupancy();
+  private volatile boolean stopped;
+
+  // Guarded by this.
+  private long samples;
+  private long sampleNanos;
+  private long claimedSamples;
+  private long claimedSum;
+  private long claimedMax = -1;
+  private long idleSamples;
+  private long idleSum;
+  private long waitingSamples;
+  private long waitingSum;
+  private long waitingMax = -1;
+  private long allocationsAtStart = -1;
+  private long allocations = -1;
+  private long deallocationsAtStart = -1;
+  private long deallocations = -1;
+
+  public OccupancySampler(Supplier<PoolAdapter> pool, long intervalNanos) {
+    super("occupancy-sampler");
+    setDaemon(true);
+    this.pool = pool;
+    this.intervalNanos = intervalNanos;
+  }
+
+  @Override
+  public void run() {
+    while (!stopped) {
+      LockSupport.parkNanos(intervalNanos);
+      PoolAdapter adapter = pool.get();
+      if (adapter == null || !adapter.supportsOccupancy()) {
+        continue;
+      }
+      occupancy.clear();
+      long start = System.nanoTime();
+      try {
+        adapter.sampleOccupancy(occupancy);
+      } catch (RuntimeException e) {
+        // The pool is not built yet, or has been shut down.
+        continue;
+      }
+      record(System.nanoTime() - start);
+    }
+  }
+
+  private synchronized void record(long nanos) {
+    samples++;
+    sampleNanos += nanos;
+    if (occupancy.claimed != -1) {
+      claimedSamples++;
+      claimedSum += occupancy.claimed;
+      claimedMax = Math.max(claimedMax, occupancy.claimed);
+    }
+    if (occupancy.idle != -1) {
+      idleSamples++;
+      idleSum += occupancy.idle;
+    }
+    if (occupancy.waiting != -1) {
+      waitingSamples++;
+      waitingSum += occupancy.waiting;
+      waitingMax = Math.max(waitingMax, occupancy.waiting);
+    }
+    if (allocationsAtStart == -1) {
+      allocationsAtStart = occupancy.allocations;
+    }
+    allocations = occupancy.allocations;
+    if (deallocationsAtStart == -1) {
+      deallocationsAtStart = occupancy.deallocations;
+    }
+    deallocations = occupancy.deallocations;
+  }
+
+  /**
+   * Summarize the samples taken since the last summary, and start over.
+   */
+  public synchronized Summary summarize() {
+    Summary summary = new Summary(
+        samples,
+        samples == 0 ? Double.NaN : sampleNanos / (double) samples,
+        claimedSamples == 0 ? Double.NaN : claimedSum / (double) claimedSamples,
+        claimedMax,
+        idleSamples == 0 ? Double.NaN : idleSum / (double) idleSamples,
+        waitingSamples == 0 ? Double.NaN : waitingSum / (double) waitingSamples,
+        waitingMax,
+        allocations == -1 ? -1 : allocations - allocationsAtStart,
+        deallocations == -1 ? -1 : deallocations - deallocationsAtStart);
+    samples = 0;
+    sampleNanos = 0;
+    claimedSamples = 0;
+    claimedSum = 0;
+    claimedMax = -1;
+    idleSamples = 0;
+    idleSum = 0;
+    waitingSamples = 0;
+    waitingSum = 0;
+    waitingMax = -1;
+    allocationsAtStart = allocations;
+    deallocationsAtStart = deallocations;
+    return summary;
+  }
+
+  public void shutdown() throws InterruptedException {
+    stopped = true;
+    interrupt();
+    join();
+  }
+
+  /**
+   * The means and maximums of the samples, or NaN and -1 for what the pool
+   * does not expose, and the number of allocations and deallocations while
+   * sampling.
+   */
+  public static final class Summary {
+    public final long samples;
+    public final double sampleNanos;
+    public final double claimedMean;
+    public final long claimedMax;
+    public final double idleMean;
+    public final double waitingMean;
+    public final long waitingMax;
+    public final long allocations;
+    public final long deallocations;
+
+    Summary(long samples, double sampleNanos, double claimedMean, long claimedMax, double idleMean,
+            double waitingMean, long waitingMax, long allocations, long deallocations) {
+      this.samples = samples;
+      this.sampleNanos = sampleNanos;
+      this.claimedMean = claimedMean;
+      this.claimedMax = claimedMax;
+      this.idleMean = idleMean;
+      this.waitingMean = waitingMean;
+      this.waitingMax = waitingMax;
+      this.allocations = allocations;
+      this.deallocations = deallocations;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures what the {@link objectpoolbenchmark.profile.OccupancyProfiler}
+ * costs the threads that use the pool, by running the {@link ClaimRelease}
+ * cycle with an {@link OccupancySampler} sampling the pool every
+ * {@code sampleIntervalMicros}, or with no sampler at all when that is zero.
+ * The sampler runs on a core of its own, so run this with fewer threads than
+ * cores, like the profiled benchmarks, or the sampler takes turns with the
+ * benchmark threads instead.
+ */
+@State(Scope.Benchmark)
+public class OccupancySampling
+{
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "ConcurrentBag"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"0", "1000", "100"})
+  public long sampleIntervalMicros;
+
+  private PoolAdapter adapter;
+  private OccupancySampler sampler;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsOccupancy()) {
+      throw new IllegalArgumentException(pool + " does not support occupancy sampling");
+    }
+    adapter.create(poolSize);
+    if (sampleIntervalMicros > 0) {
+      PoolAdapter sampled = adapter;
+      sampler = new OccupancySampler(() -> sampled, TimeUnit.MICROSECONDS.toNanos(sampleIntervalMicros));
+      sampler.start();
+    }
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    if (sampler != null) {
+      sampler.shutdown();
+    }
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void cycle() throws Exception {
+    Object obj = adapter.claim();
+    adapter.release(obj);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Makes the pools hold payloads of a given size, either byte arrays on the
+ * heap, or direct {@link ByteBuffer}s, so pooling can be compared with just
+ * allocating the payloads.
+ */
+public class PayloadFactory implements ResourceFactory {
+  private static final int PAGE_SIZE = 4096;
+
+  private final boolean direct;
+  private final int size;
+
+  public PayloadFactory(String payload, int size) {
+    switch (payload) {
+      case "heap":
+        direct = false;
+        break;
+      case "direct":
+        direct = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown payload '" + payload + "', expected heap or direct");
+    }
+    this.size = size;
+  }
+
+  public boolean isDirect() {
+    return direct;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Object allocate() {
+    return direct ? ByteBuffer.allocateDirect(size) : new byte[size];
+  }
+
+  @Override
+  public boolean validate(Object resource) {
+    return true;
+  }
+
+  @Override
+  public void deallocate(Object resource) {
+    // Both kinds of payload are freed by the garbage collector.
+  }
+
+  /**
+   * Write to every page of the payload, like a user of the payload would.
+   */
+  public static void touch(Object payload) {
+    if (payload instanceof byte[]) {
+      byte[] array = (byte[]) payload;
+      for (int i = 0; i < array.length; i += PAGE_SIZE) {
+        array[i]++;
+      }
+    } else {
+      ByteBuffer buffer = (ByteBuffer) payload;
+      for (int i = 0; i < buffer.capacity(); i += PAGE_SIZE) {
+        buffer.put(i, (byte) (buffer.get(i) + 1));
+      }
+    }
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plugs an object pool library into the benchmarks.
+ *
+ * Implementations are discovered with the {@link java.util.ServiceLoader}, so
+ * they need a public no-arg constructor, and must be listed in
+ * {@code META-INF/services/objectpoolbenchmark.suite.PoolAdapter}.
+ * Each adapter instance manages a single pool, which is built by
+ * {@link #create(int)} and torn down by {@link #shutdown()}.
+ */
+public interface PoolAdapter {
+  /**
+   * The name that selects this adapter in the {@code pool} parameter of the
+   * benchmarks.
+   */
+  String name();
+
+  /**
+   * The Maven coordinates of the pool library, as "groupId:artifactId", or
+   * null if the pool is part of this project.
+   */
+  default String artifact() {
+    return null;
+  }
+
+  /**
+   * The version of the pool library, or null if the pool is part of this
+   * project.
+   */
+  default String version() {
+    String artifact = artifact();
+    return artifact == null ? null : PoolAdapters.mavenVersion(getClass(), artifact);
+  }
+
+  void create(int poolSize) throws Exception;
+
+  Object claim() throws Exception;
+
+  /**
+   * Claim an object, waiting at most the given timeout, or return null if
+   * the timeout elapsed. Only supported if {@link #supportsTimeouts()}.
+   */
+  default Object claim(long timeout, TimeUnit unit) throws Exception {
+    throw new UnsupportedOperationException(name() + " does not support claim timeouts");
+  }
+
+  void release(Object obj) throws Exception;
+
+  /**
+   * Claim {@code count} objects into the given array. The default
+   * implementation claims them one at a time.
+   */
+  default void claimAll(Object[] objs, int count) throws Exception {
+    for (int i = 0; i < count; i++) {
+      objs[i] = claim();
+    }
+  }
+
+  /**
+   * Claim {@code count} objects into the given array, waiting at most the
+   * given timeout. If they could not all be claimed in time, the objects that
+   * were claimed are released again, and false is returned. Only supported
+   * if {@link #supportsTimeouts()}. The default implementation claims the
+   * objects one at a time.
+   */
+  default boolean claimAll(Object[] objs, int count, long timeout, TimeUnit unit) throws Exception {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (int i = 0; i < count; i++) {
+      Object obj = claim(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      if (obj == null) {
+        releaseAll(objs, i);
+        return false;
+      }
+      objs[i] = obj;
+    }
+    return true;
+  }
+
+  /**
+   * Release the first {@code count} objects in the given array, and clear
+   * them from the array.
+   */
+  default void releaseAll(Object[] objs, int count) throws Exception {
+    for (int i = 0; i < count; i++) {
+      release(objs[i]);
+      objs[i] = null;
+    }
+  }
+
+  void shutdown() throws Exception;
+
+  boolean supportsTimeouts();
+
+  /**
+   * Whether the pool itself validates objects when they are claimed.
+   */
+  boolean supportsValidation();
+
+  /**
+   * Whether {@link #claimAll(Object[], int)} or
+   * {@link #releaseAll(Object[], int)} use a bulk operation of the pool,
+   * rather than claiming or releasing one object at a time.
+   */
+  default boolean supportsBulk() {
+    return false;
+  }
+
+  /**
+   * Whether the pool allocates, validates and deallocates its objects through
+   * the {@link Failures}, so that their failures can be injected.
+   */
+  default boolean supportsFailureInjection() {
+    return false;
+  }
+
+  /**
+   * Whether the pool can change its size after it has been created, and counts
+   * its objects in the {@link LiveObjects}.
+   */
+  default boolean supportsResize() {
+    return false;
+  }
+
+  /**
+   * Make the pool grow or shrink to the given number of objects. The pool may
+   * get there in its own time. Only supported if {@link #supportsResize()}.
+   */
+  default void resize(int poolSize) throws Exception {
+    throw new UnsupportedOperationException(name() + " does not support resizing");
+  }
+
+  /**
+   * Whether the pool exposes some of its {@link Occupancy}.
+   */
+  default boolean supportsOccupancy() {
+    return false;
+  }
+
+  /**
+   * Fill in what the pool exposes about its current occupancy. The occupancy
+   * is cleared before it is given to this method. Called from a sampling
+   * thread, while other threads are using the pool. Only supported if
+   * {@link #supportsOccupancy()}.
+   */
+  default void sampleOccupancy(Occupancy occupancy) {
+    throw new UnsupportedOperationException(name() + " does not support occupancy sampling");
+  }
+
+  /**
+   * Whether the pool can expire and replace objects, as decided by an
+   * {@link ExpirationPolicy}.
+   */
+  default boolean supportsExpiration() {
+    return false;
+  }
+
+  /**
+   * Make the pool expire objects according to the given policy. Must be called
+   * before {@link #create(int)}. Only supported if {@link #supportsExpiration()}.
+   */
+  default void setExpirationPolicy(ExpirationPolicy policy) {
+    throw new UnsupportedOperationException(name() + " does not support expiration");
+  }
+
+  /**
+   * Whether the pool can hold the resources of a {@link ResourceFactory}.
+   */
+  default boolean supportsResources() {
+    return false;
+  }
+
+  /**
+   * Make the pool hold resources from the given factory in its objects. Must
+   * be called before {@link #create(int)}. Only supported if
+   * {@link #supportsResources()}.
+   */
+  default void setResourceFactory(ResourceFactory factory) {
+    throw new UnsupportedOperationException(name() + " does not support resources");
+  }
+
+  /**
+   * The resource held by an object claimed from a pool that was given a
+   * {@link #setResourceFactory(ResourceFactory) resource factory}.
+   */
+  default Object resource(Object obj) {
+    throw new UnsupportedOperationException(name() + " does not support resources");
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class PoolAdapters {
+  /**
+   * Separates the adapter name from the library version in pool names like
+   * "CommonsPool2@2.4.2".
+   */
+  public static final char VERSION_SEPARATOR = '@';
+
+  /**
+   * Suffixed to the name of a pool, optionally followed by the magazine size,
+   * like "CommonsPool2+Magazine4", wraps the pool in a {@link MagazineAdapter}.
+   */
+  public static final String MAGAZINE_SUFFIX = "+Magazine";
+
+  /**
+   * The system property that the benchmarks jar sets in the benchmark JVMs to
+   * the {@link #versions()} of the pool libraries. JMH records it with the
+   * other JVM arguments in its results, so the results say what they were
+   * measured with, whatever build ingests them.
+   */
+  public static final String VERSIONS_PROPERTY = "pool.versions";
+
+  private static final int DEFAULT_MAGAZINE_SIZE = 4;
+
+  private static final Map<String, IsolatedLibraryLoader> LOADERS = new ConcurrentHashMap<>();
+
+  private static volatile PoolAdapter latest;
+
+  private PoolAdapters() {
+  }
+
+  /**
+   * Create a new, not yet {@link PoolAdapter#create(int) created}, instance of
+   * the adapter with the given name.
+   *
+   * The name can be suffixed with a library version, like
+   * "CommonsPool2@2.4.2", in which case the adapter runs against that version
+   * of the library, loaded from the local Maven repository into a class
+   * loader of its own. It can also be suffixed with a
+   * {@link #MAGAZINE_SUFFIX}, to put thread-local magazines in front of the
+   * pool.
+   */
+  public static PoolAdapter create(String name) {
+    PoolAdapter adapter = createAdapter(name);
+    latest = adapter;
+    return adapter;
+  }
+
+  /**
+   * The adapter that was last {@link #create(String) created} in this JVM, or
+   * null if none has been created. This is how profilers find the pool of the
+   * benchmark they are profiling. The adapter may not have built its pool yet,
+   * or may have shut it down already.
+   */
+  public static PoolAdapter latest() {
+    return latest;
+  }
+
+  private static PoolAdapter createAdapter(String name) {
+    int magazine = name.indexOf(MAGAZINE_SUFFIX);
+    if (magazine != -1) {
+      String magazineSize = name.substring(magazine + MAGAZINE_SUFFIX.length());
+      try {
+        return new MagazineAdapter(createAdapter(name.substring(0, magazine)),
+            magazineSize.isEmpty() ? DEFAULT_MAGAZINE_SIZE : Integer.parseInt(magazineSize));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Bad magazine size in pool '" + name + "'", e);
+      }
+    }
+    int separator = name.indexOf(VERSION_SEPARATOR);
+    String adapterName = separator == -1 ? name : name.substring(0, separator);
+    for (PoolAdapter adapter : ServiceLoader.load(PoolAdapter.class)) {
+      if (adapter.name().equals(adapterName)) {
+        if (separator == -1) {
+          return adapter;
+        }
+        return createIsolated(adapter, name.substring(separator + 1));
+      }
+    }
+    throw new IllegalArgumentException("Unknown pool '" + name + "', expected one of " + names());
+  }
+
+  private static PoolAdapter createIsolated(PoolAdapter adapter, String version) {
+    String artifact = adapter.artifact();
+    if (artifact == null) {
+      throw new IllegalArgumentException(
+          adapter.name() + " is part of this project, and has no other versions");
+    }
+    String coordinates = artifact + ":" + version;
+    IsolatedLibraryLoader loader = LOADERS.computeIfAbsent(coordinates,
+        c -> new IsolatedLibraryLoader(adapter.getClass(), c));
+    try {
+      return (PoolAdapter) loader.loadClass(adapter.getClass().getName())
+          .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new IllegalArgumentException(
+          "Cannot load " + adapter.name() + " against " + coordinates, e);
+    }
+  }
+
+  public static List<String> names() {
+    List<String> names = new ArrayList<>();
+    for (PoolAdapter adapter : ServiceLoader.load(PoolAdapter.class)) {
+      names.add(adapter.name());
+    }
+    return names;
+  }
+
+  /**
+   * The versions of the pool libraries on the class path, like
+   * "CommonsPool2=2.8.0,ConcurrentBag=3.4.5", leaving out the pools that are
+   * part of this project, or whose version is unknown.
+   */
+  public static String versions() {
+    StringJoiner versions = new StringJoiner(",");
+    for (PoolAdapter adapter : ServiceLoader.load(PoolAdapter.class)) {
+      String version = adapter.version();
+      if (version != null) {
+        versions.add(adapter.name() + "=" + version);
+      }
+    }
+    return versions.toString();
+  }
+
+  /**
+   * Look up the version of a library, given as "groupId:artifactId", from the
+   * Maven {@code pom.properties} in its jar file, using the class loader of
+   * the given class. Returns null if the version cannot be found.
+   */
+  public static String mavenVersion(Class<?> cls, String artifact) {
+    String resource = "META-INF/maven/" + artifact.replace(':', '/') + "/pom.properties";
+    ClassLoader loader = cls.getClassLoader();
+    try (InputStream in = loader == null ? null : loader.getResourceAsStream(resource)) {
+      if (in == null) {
+        return null;
+      }
+      Properties properties = new Properties();
+      properties.load(in);
+      return properties.getProperty("version");
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import objectpoolbenchmark.openloop.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Claim, use, release cycles while a background thread resizes the pool back
+ * and forth between {@code poolSize} and {@code resizedSize}, every
+ * {@code resizePeriodMillis}.
+ *
+ * After each resize, the {@link LiveObjects} are sampled until the pool holds
+ * exactly the new number of objects. The time that took, the resizes where it
+ * did not happen before the next resize, and how far the pool went above both
+ * the old and the new size, are reported by the {@link Resizes} counters.
+ * Claims made while the pool is converging are counted separately from the
+ * other claims, so the claim latency spikes of the transitions can be told
+ * apart. Their claim waits are also published to the {@link Latencies} as
+ * {@code transitionClaim} and {@code steadyClaim}, so run with
+ * {@code -prof objectpoolbenchmark.profile.LatencyProfiler} to get the
+ * percentiles of both. The objects that are still allocated once the pool has been shut
+ * down are counted as leaked, in the last iteration. The counters are only
+ * available in the throughput and average time modes.
+ *
+ * The pool is not resized back at the end of an iteration, so the resizer of
+ * the next iteration carries on from the size that the pool was left at.
+ *
+ * Pools that allocate lazily, like commons-pool2, only grow as far as the
+ * demand of the benchmark threads.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class PoolResize
+{
+  private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  @Param({
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ConcurrentBag"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"2", "40"})
+  public int resizedSize;
+
+  @Param({"200"})
+  public long resizePeriodMillis;
+
+  private PoolAdapter adapter;
+  private Thread resizer;
+  private int size;
+  private Resizes reporter;
+  private volatile boolean converging;
+  private final AtomicLong resizes = new AtomicLong();
+  private final AtomicLong convergedResizes = new AtomicLong();
+  private final AtomicLong convergenceNanos = new AtomicLong();
+  private final AtomicLong overAllocatedObjects = new AtomicLong();
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsResize()) {
+      throw new IllegalArgumentException(pool + " does not support resizing");
+    }
+    adapter.create(poolSize);
+    size = poolSize;
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+    if (reporter != null) {
+      reporter.leakedObjects = LiveObjects.count();
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void startResizing() {
+    resizer = new Thread(this::resize, "pool-resizer");
+    resizer.setDaemon(true);
+    resizer.start();
+  }
+
+  @TearDown(Level.Iteration)
+  public void stopResizing() throws Exception {
+    resizer.interrupt();
+    resizer.join();
+  }
+
+  private void resize() {
+    long periodNanos = TimeUnit.MILLISECONDS.toNanos(resizePeriodMillis);
+    try {
+      while (!Thread.interrupted()) {
+        int previousSize = size;
+        size = size == poolSize ? resizedSize : poolSize;
+        long start = System.nanoTime();
+        converging = true;
+        adapter.resize(size);
+        resizes.incrementAndGet();
+        long peak = 0;
+        long now;
+        while ((now = System.nanoTime()) - start < periodNanos) {
+          long live = LiveObjects.count();
+          peak = Math.max(peak, live);
+          if (converging && live == size) {
+            converging = false;
+            convergedResizes.incrementAndGet();
+            convergenceNanos.addAndGet(now - start);
+          }
+          LockSupport.parkNanos(SAMPLE_INTERVAL_NANOS);
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+        }
+        converging = false;
+        overAllocatedObjects.addAndGet(Math.max(0, peak - Math.max(previousSize, size)));
+      }
+    } catch (InterruptedException e) {
+      // Stopped at the end of the iteration.
+    } catch (Exception e) {
+      throw new AssertionError("Resizing " + pool + " to " + size + " failed", e);
+    } finally {
+      converging = false;
+    }
+  }
+
+  @Benchmark
+  public void cycle(Resizes counters) throws Exception {
+    boolean transition = converging;
+    long start = System.nanoTime();
+    Object obj = adapter.claim();
+    long wait = System.nanoTime() - start;
+    if (transition) {
+      counters.transitionClaims++;
+      counters.transitionClaimWaitNanos += wait;
+      counters.transitionClaimWaits.record(wait);
+    } else {
+      counters.steadyClaims++;
+      counters.steadyClaimWaitNanos += wait;
+      counters.steadyClaimWaits.record(wait);
+    }
+    Costs.expendUsage();
+    adapter.release(obj);
+  }
+
+  /**
+   * The claims are counted by every thread, so the average claim latency
+   * during transitions is {@code transitionClaimWaitNanos / transitionClaims}.
+   * The resizes can only be counted for the pool as a whole, and are reported
+   * by the first benchmark thread, which also gets the leaked objects when
+   * the pool is shut down after the last iteration. The average time to converge is
+   * {@code convergenceMillis / convergedResizes}.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Resizes {
+    public long steadyClaims;
+    public long steadyClaimWaitNanos;
+    public long transitionClaims;
+    public long transitionClaimWaitNanos;
+    public long resizes;
+    public long convergedResizes;
+    public double convergenceMillis;
+    public long overAllocatedObjects;
+    public long leakedObjects;
+    private LatencyHistogram transitionClaimWaits;
+    private LatencyHistogram steadyClaimWaits;
+    private PoolResize benchmark;
+    private boolean reporting;
+    private long resizesAtStart;
+    private long convergedResizesAtStart;
+    private long convergenceNanosAtStart;
+    private long overAllocatedObjectsAtStart;
+
+    @Setup(Level.Iteration)
+    public void start(PoolResize benchmark, ThreadParams threadParams) {
+      steadyClaims = 0;
+      steadyClaimWaitNanos = 0;
+      transitionClaims = 0;
+      transitionClaimWaitNanos = 0;
+      transitionClaimWaits = new LatencyHistogram();
+      steadyClaimWaits = new LatencyHistogram();
+      this.benchmark = benchmark;
+      reporting = threadParams.getThreadIndex() == 0;
+      if (reporting) {
+        benchmark.reporter = this;
+      }
+      resizesAtStart = benchmark.resizes.get();
+      convergedResizesAtStart = benchmark.convergedResizes.get();
+      convergenceNanosAtStart = benchmark.convergenceNanos.get();
+      overAllocatedObjectsAtStart = benchmark.overAllocatedObjects.get();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+      Latencies.publish("transitionClaim", transitionClaimWaits);
+      Latencies.publish("steadyClaim", steadyClaimWaits);
+      if (reporting) {
+        resizes = benchmark.resizes.get() - resizesAtStart;
+        convergedResizes = benchmark.convergedResizes.get() - convergedResizesAtStart;
+        convergenceMillis = (benchmark.convergenceNanos.get() - convergenceNanosAtStart) / 1e6;
+        overAllocatedObjects = benchmark.overAllocatedObjects.get() - overAllocatedObjectsAtStart;
+      }
+    }
+  }
+}
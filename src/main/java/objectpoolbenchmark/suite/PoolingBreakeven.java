@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares pooling payloads of different sizes with allocating them, and
+ * leaving them to the garbage collector. The {@code Allocation} pool is not a
+ * pool, but allocates a new payload in every cycle.
+ *
+ * Every cycle gets a payload, writes to each of its pages, spends the
+ * {@code cost.of.usage}, and gives it back. Which garbage collector is used
+ * makes a big difference to the cost of allocation, so run this with each of
+ * them, like {@code breakevensuite.sh} does, and compare the results with
+ * {@link objectpoolbenchmark.results.Breakeven}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoolingBreakeven
+{
+  @Param({
+      "Allocation",
+      "StormpotBlazePool",
+      "CommonsPool2",
+      "ViburObjectPool",
+      "ConcurrentBag"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"heap", "direct"})
+  public String payload;
+
+  @Param({"64", "1024", "16384", "262144", "1048576"})
+  public int payloadSize;
+
+  private PayloadFactory payloads;
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    payloads = new PayloadFactory(payload, payloadSize);
+    if (pool.equals("Allocation")) {
+      return;
+    }
+    adapter = PoolAdapters.create(pool);
+    if (!adapter.supportsResources()) {
+      throw new IllegalArgumentException(pool + " cannot hold payloads");
+    }
+    adapter.setResourceFactory(payloads);
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    if (adapter != null) {
+      adapter.shutdown();
+    }
+  }
+
+  @Benchmark
+  public Object cycle() throws Exception {
+    if (adapter == null) {
+      Object obj = payloads.allocate();
+      PayloadFactory.touch(obj);
+      Costs.expendUsage();
+      return obj;
+    }
+    Object obj = adapter.claim();
+    PayloadFactory.touch(adapter.resource(obj));
+    Costs.expendUsage();
+    adapter.release(obj);
+    return obj;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+/**
+ * Makes a pool hold real resources, such as connections, in its objects,
+ * instead of leaving them empty. The pools allocate, validate and deallocate
+ * the resources with their own life-cycle, on top of the {@link Costs}.
+ *
+ * @see PoolAdapter#setResourceFactory(ResourceFactory)
+ */
+public interface ResourceFactory {
+  Object allocate() throws Exception;
+
+  /**
+   * Whether the resource is still usable. Resources that are not are
+   * deallocated, and replaced by the pool.
+   */
+  boolean validate(Object resource);
+
+  void deallocate(Object resource) throws Exception;
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.commonspool;
+
+import objectpoolbenchmark.suite.PoolAdapter;
+import org.apache.commons.pool.ObjectPool;
+
+public abstract class CommonsPoolAdapter implements PoolAdapter {
+  protected ObjectPool<MyCommonsObject> pool;
+
+  @Override
+  public String artifact() {
+    return "commons-pool:commons-pool";
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    return pool.borrowObject();
+  }
+
+  @Override
+  public void release(Object obj) throws Exception {
+    pool.returnObject((MyCommonsObject) obj);
+  }
+
+  @Override
+  public void shutdown() throws Exception {
+    pool.close();
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsFailureInjection() {
+    return true;
+  }
+}
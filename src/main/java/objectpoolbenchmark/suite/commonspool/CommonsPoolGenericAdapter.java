@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.commonspool;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+public class CommonsPoolGenericAdapter extends CommonsPoolAdapter {
+  @Override
+  public String name() {
+    return "CommonsPoolGeneric";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    pool = new GenericObjectPool<>(
+        new MyPoolableObjectFactory(),
+        poolSize,
+        GenericObjectPool.WHEN_EXHAUSTED_BLOCK,
+        GenericObjectPool.DEFAULT_MAX_WAIT,
+        GenericObjectPool.DEFAULT_MAX_IDLE,
+        GenericObjectPool.DEFAULT_MIN_IDLE,
+        true, // test on borrow
+        false,
+        GenericObjectPool.DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS,
+        GenericObjectPool.DEFAULT_NUM_TESTS_PER_EVICTION_RUN,
+        GenericObjectPool.DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS,
+        false,
+        GenericObjectPool.DEFAULT_SOFT_MIN_EVICTABLE_IDLE_TIME_MILLIS,
+        GenericObjectPool.DEFAULT_LIFO);
+  }
+}
@@ -16,23 +16,26 @@
 package objectpoolbenchmark.suite.commonspool;
 
 import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
 import org.apache.commons.pool.BasePoolableObjectFactory;
 
 public class MyPoolableObjectFactory extends BasePoolableObjectFactory<MyCommonsObject> {
   @Override
   public MyCommonsObject makeObject() throws Exception {
     Costs.expendAllocation();
+    Failures.allocation();
     return new MyCommonsObject();
   }
 
   @Override
   public boolean validateObject(MyCommonsObject obj) {
     Costs.expendValidation();
-    return true;
+    return Failures.validation();
   }
 
   @Override
   public void destroyObject(MyCommonsObject obj) throws Exception {
     Costs.expendDeallocation();
+    Failures.deallocation();
   }
 }
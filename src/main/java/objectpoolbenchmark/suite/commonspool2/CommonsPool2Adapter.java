@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.commonspool2;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import objectpoolbenchmark.suite.ExpirationPolicy;
+import objectpoolbenchmark.suite.Occupancy;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.ResourceFactory;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+public class CommonsPool2Adapter implements PoolAdapter {
+  private static final long EVICTION_RUN_INTERVAL_MILLIS = 100;
+
+  private ExpirationPolicy expirationPolicy;
+  private ResourceFactory resourceFactory;
+  private GenericObjectPool<MyCommons2Object> pool;
+
+  @Override
+  public String name() {
+    return "CommonsPool2";
+  }
+
+  @Override
+  public String artifact() {
+    return "org.apache.commons:commons-pool2";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    GenericObjectPoolConfig<MyCommons2Object> config = new GenericObjectPoolConfig<>();
+    config.setMaxTotal(poolSize);
+    config.setBlockWhenExhausted(true);
+    config.setTestOnBorrow(true);
+    MyPooledObjectFactory factory = new MyPooledObjectFactory();
+    if (expirationPolicy != null && resourceFactory != null) {
+      throw new IllegalStateException("Expiration and resources cannot be combined");
+    }
+    if (resourceFactory != null) {
+      factory = new ResourcePooledObjectFactory(resourceFactory);
+    }
+    if (expirationPolicy != null) {
+      // Let the evictor find and replace expired idle objects in the background.
+      factory = new ExpiringPooledObjectFactory(expirationPolicy);
+      config.setMinIdle(poolSize);
+      config.setTestWhileIdle(true);
+      config.setNumTestsPerEvictionRun(poolSize);
+      config.setTimeBetweenEvictionRunsMillis(EVICTION_RUN_INTERVAL_MILLIS);
+    }
+    pool = new GenericObjectPool<>(factory, config);
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    return pool.borrowObject();
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) throws Exception {
+    try {
+      return pool.borrowObject(unit.toMillis(timeout));
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void release(Object obj) {
+    pool.returnObject((MyCommons2Object) obj);
+  }
+
+  @Override
+  public void shutdown() {
+    pool.close();
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsFailureInjection() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsResize() {
+    return true;
+  }
+
+  /**
+   * The pool grows lazily, when objects are borrowed, and shrinks when
+   * objects are returned while the pool is above the new size.
+   */
+  @Override
+  public void resize(int poolSize) {
+    pool.setMaxTotal(poolSize);
+    pool.setMaxIdle(poolSize);
+  }
+
+  @Override
+  public boolean supportsOccupancy() {
+    return true;
+  }
+
+  @Override
+  public void sampleOccupancy(Occupancy occupancy) {
+    occupancy.claimed = pool.getNumActive();
+    occupancy.idle = pool.getNumIdle();
+    occupancy.waiting = pool.getNumWaiters();
+    occupancy.allocations = pool.getCreatedCount();
+    occupancy.deallocations = pool.getDestroyedCount();
+  }
+
+  @Override
+  public boolean supportsExpiration() {
+    return true;
+  }
+
+  @Override
+  public void setExpirationPolicy(ExpirationPolicy policy) {
+    expirationPolicy = policy;
+  }
+
+  @Override
+  public boolean supportsResources() {
+    return true;
+  }
+
+  @Override
+  public void setResourceFactory(ResourceFactory factory) {
+    resourceFactory = factory;
+  }
+
+  @Override
+  public Object resource(Object obj) {
+    return ((MyCommons2Object) obj).resource;
+  }
+}
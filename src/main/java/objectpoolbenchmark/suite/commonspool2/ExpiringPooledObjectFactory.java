@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.commonspool2;
+
+import objectpoolbenchmark.suite.ExpirationPolicy;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+public class ExpiringPooledObjectFactory extends MyPooledObjectFactory {
+  private final ExpirationPolicy policy;
+
+  public ExpiringPooledObjectFactory(ExpirationPolicy policy) {
+    this.policy = policy;
+  }
+
+  @Override
+  public PooledObject<MyCommons2Object> wrap(MyCommons2Object obj) {
+    return new ExpiringPooledObject(obj, policy.isMortal());
+  }
+
+  /**
+   * Objects that have never been returned are not expired, because
+   * commons-pool2 fails the borrow when a newly created object does not
+   * validate.
+   */
+  @Override
+  public boolean validateObject(PooledObject<MyCommons2Object> p) {
+    ExpiringPooledObject obj = (ExpiringPooledObject) p;
+    long age = System.currentTimeMillis() - obj.getCreateTime();
+    return super.validateObject(p)
+        && !(obj.returned && policy.hasExpired(obj.mortal, age, obj.getBorrowedCount()));
+  }
+
+  @Override
+  public void passivateObject(PooledObject<MyCommons2Object> p) {
+    ((ExpiringPooledObject) p).returned = true;
+  }
+
+  private static class ExpiringPooledObject extends DefaultPooledObject<MyCommons2Object> {
+    private final boolean mortal;
+    private volatile boolean returned;
+
+    ExpiringPooledObject(MyCommons2Object object, boolean mortal) {
+      super(object);
+      this.mortal = mortal;
+    }
+  }
+}
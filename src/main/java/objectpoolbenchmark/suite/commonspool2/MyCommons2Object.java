@@ -16,4 +16,5 @@
 package objectpoolbenchmark.suite.commonspool2;
 
 public class MyCommons2Object {
+  Object resource;
 }
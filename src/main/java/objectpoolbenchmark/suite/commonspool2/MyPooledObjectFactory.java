@@ -16,6 +16,8 @@
 package objectpoolbenchmark.suite.commonspool2;
 
 import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.LiveObjects;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
@@ -25,6 +27,8 @@ public class MyPooledObjectFactory extends BasePooledObjectFactory<MyCommons2Obj
   @Override
   public MyCommons2Object create() throws Exception {
     Costs.expendAllocation();
+    Failures.allocation();
+    LiveObjects.allocated();
     return new MyCommons2Object();
   }
 
@@ -36,11 +40,13 @@ public class MyPooledObjectFactory extends BasePooledObjectFactory<MyCommons2Obj
   @Override
   public boolean validateObject(PooledObject<MyCommons2Object> p) {
     Costs.expendValidation();
-    return true;
+    return Failures.validation();
   }
 
   @Override
   public void destroyObject(PooledObject<MyCommons2Object> p) throws Exception {
     Costs.expendDeallocation();
+    LiveObjects.deallocated();
+    Failures.deallocation();
   }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.commonspool2;
+
+import objectpoolbenchmark.suite.ResourceFactory;
+import org.apache.commons.pool2.PooledObject;
+
+public class ResourcePooledObjectFactory extends MyPooledObjectFactory {
+  private final ResourceFactory resources;
+
+  public ResourcePooledObjectFactory(ResourceFactory resources) {
+    this.resources = resources;
+  }
+
+  @Override
+  public MyCommons2Object create() throws Exception {
+    MyCommons2Object obj = super.create();
+    obj.resource = resources.allocate();
+    return obj;
+  }
+
+  @Override
+  public boolean validateObject(PooledObject<MyCommons2Object> p) {
+    return super.validateObject(p) && resources.validate(p.getObject().resource);
+  }
+
+  @Override
+  public void destroyObject(PooledObject<MyCommons2Object> p) throws Exception {
+    resources.deallocate(p.getObject().resource);
+    super.destroyObject(p);
+  }
+}
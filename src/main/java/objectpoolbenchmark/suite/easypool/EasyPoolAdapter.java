@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.easypool;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.PoolAdapter;
+import ru.narod.dimzon541.utils.pooling.EasyPool;
+
+/**
+ * EasyPool only hands out sockets, so the objects are allocated lazily on
+ * first claim, and validated on every subsequent claim, by the adapter. Objects
+ * that fail validation are replaced right away.
+ */
+public class EasyPoolAdapter implements PoolAdapter {
+  private EasyPool<Object> easyPool;
+
+  @Override
+  public String name() {
+    return "EasyPool";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    easyPool = new EasyPool<>(poolSize);
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    EasyPool<Object>.PoolSocket socket = easyPool.getSocket();
+    Object value = socket.getObject();
+    if (value != null) {
+      Costs.expendValidation();
+      if (!Failures.validation()) {
+        socket.setObject(null);
+        Costs.expendDeallocation();
+        try {
+          Failures.deallocation();
+        } catch (Failures.InjectedFailure e) {
+          // The object is replaced anyway.
+        }
+        value = null;
+      }
+    }
+    if (value == null) {
+      Costs.expendAllocation();
+      try {
+        Failures.allocation();
+      } catch (Failures.InjectedFailure e) {
+        socket.close();
+        throw e;
+      }
+      socket.setObject(new Object());
+    }
+    return socket;
+  }
+
+  @Override
+  public void release(Object obj) throws Exception {
+    ((AutoCloseable) obj).close();
+  }
+
+  @Override
+  public void shutdown() {
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsFailureInjection() {
+    return true;
+  }
+}
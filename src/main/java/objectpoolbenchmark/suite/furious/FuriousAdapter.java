@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.furious;
+
+import nf.fr.eraasoft.pool.ObjectPool;
+import nf.fr.eraasoft.pool.PoolSettings;
+import nf.fr.eraasoft.pool.impl.PoolControler;
+import objectpoolbenchmark.suite.PoolAdapter;
+
+public class FuriousAdapter implements PoolAdapter {
+  private ObjectPool<MyFuriousObject> pool;
+
+  @Override
+  public String name() {
+    return "Furious";
+  }
+
+  @Override
+  public String artifact() {
+    return "nf.fr.eraasoft:objectpool";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    PoolSettings<MyFuriousObject> settings = new PoolSettings<>(new MyPoolableObject());
+    settings.min(0).max(poolSize);
+    pool = settings.pool();
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    return pool.getObj();
+  }
+
+  @Override
+  public void release(Object obj) {
+    pool.returnObj((MyFuriousObject) obj);
+  }
+
+  @Override
+  public void shutdown() {
+    PoolControler.shutdown();
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return true;
+  }
+}
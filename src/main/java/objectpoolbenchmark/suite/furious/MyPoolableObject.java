@@ -18,11 +18,13 @@ package objectpoolbenchmark.suite.furious;
 import nf.fr.eraasoft.pool.PoolException;
 import nf.fr.eraasoft.pool.PoolableObjectBase;
 import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
 
 public class MyPoolableObject extends PoolableObjectBase<MyFuriousObject> {
   @Override
   public MyFuriousObject make() throws PoolException {
     Costs.expendAllocation();
+    Failures.allocation();
     return new MyFuriousObject();
   }
 
@@ -33,11 +35,12 @@ public class MyPoolableObject extends PoolableObjectBase<MyFuriousObject> {
   @Override
   public boolean validate(MyFuriousObject obj) {
     Costs.expendValidation();
-    return true;
+    return Failures.validation();
   }
 
   @Override
   public void destroy(MyFuriousObject myFuriousObject) {
     Costs.expendDeallocation();
+    Failures.deallocation();
   }
 }
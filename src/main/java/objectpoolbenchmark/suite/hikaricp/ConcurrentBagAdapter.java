@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.hikaricp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.zaxxer.hikari.util.ConcurrentBag;
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.LiveObjects;
+import objectpoolbenchmark.suite.Occupancy;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.ResourceFactory;
+
+/**
+ * The ConcurrentBag is filled eagerly, and it does not validate its entries,
+ * so the adapter spends the validation cost on every claim. Entries that do
+ * not validate are removed and replaced by the adapter, like HikariCP replaces
+ * dead connections. If a replacement cannot be allocated, the claims keep
+ * trying to refill the bag, in between waiting for entries in short rounds.
+ *
+ * The bag is resized like HikariCP resizes its pool: new entries are added
+ * right away, and surplus entries are removed when they are idle, or else when
+ * they are released. Claims without a timeout only wait in rounds while
+ * entries are missing, and releases only look for surplus entries once the
+ * bag has been resized.
+ */
+public class ConcurrentBagAdapter implements PoolAdapter {
+  private static final long REFILL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final AtomicInteger missing = new AtomicInteger();
+  private final AtomicInteger surplus = new AtomicInteger();
+  private volatile boolean resized;
+  private int poolSize;
+  private ResourceFactory resourceFactory;
+  private ConcurrentBag<MyBagEntry> bag;
+
+  @Override
+  public String name() {
+    return "ConcurrentBag";
+  }
+
+  @Override
+  public String artifact() {
+    return "com.zaxxer:HikariCP";
+  }
+
+  @Override
+  public void create(int poolSize) throws Exception {
+    this.poolSize = poolSize;
+    bag = new ConcurrentBag<>(new ConcurrentBag.IBagStateListener() {
+      @Override
+      public void addBagItem(int i) {
+      }
+    });
+    for (int i = 0; i < poolSize; i++) {
+      addEntry();
+    }
+  }
+
+  private void addEntry() throws Exception {
+    Costs.expendAllocation();
+    Failures.allocation();
+    bag.add(resourceFactory == null ? new MyBagEntry() : new MyBagEntry(resourceFactory.allocate()));
+    LiveObjects.allocated();
+  }
+
+  private void removeEntry(MyBagEntry entry) throws Exception {
+    bag.remove(entry);
+    LiveObjects.deallocated();
+    Costs.expendDeallocation();
+    if (resourceFactory != null) {
+      resourceFactory.deallocate(entry.resource);
+    }
+    try {
+      Failures.deallocation();
+    } catch (Failures.InjectedFailure e) {
+      // Like HikariCP, ignore failures to close what is being removed anyway.
+    }
+  }
+
+  private boolean takeSurplus() {
+    int count;
+    while ((count = surplus.get()) > 0) {
+      if (surplus.compareAndSet(count, count - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void refill() throws Exception {
+    int count;
+    while ((count = missing.get()) > 0) {
+      if (missing.compareAndSet(count, count - 1)) {
+        try {
+          addEntry();
+        } catch (Exception e) {
+          missing.incrementAndGet();
+          throw e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    if (missing.get() == 0) {
+      MyBagEntry borrow = bag.borrow(1, TimeUnit.DAYS);
+      if (borrow != null && isValid(borrow)) {
+        return borrow;
+      }
+    }
+    return borrow(TimeUnit.DAYS.toNanos(1));
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) throws Exception {
+    return borrow(unit.toNanos(timeout));
+  }
+
+  private MyBagEntry borrow(long timeoutNanos) throws Exception {
+    long deadline = System.nanoTime() + timeoutNanos;
+    while (true) {
+      refill();
+      long remaining = Math.max(0, deadline - System.nanoTime());
+      MyBagEntry borrow = bag.borrow(Math.min(remaining, REFILL_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+      if (borrow != null) {
+        if (isValid(borrow)) {
+          return borrow;
+        }
+      } else if (deadline - System.nanoTime() <= 0) {
+        return null;
+      }
+    }
+  }
+
+  private boolean isValid(MyBagEntry entry) throws Exception {
+    Costs.expendValidation();
+    if (Failures.validation() && (resourceFactory == null || resourceFactory.validate(entry.resource))) {
+      return true;
+    }
+    if (!takeSurplus()) {
+      missing.incrementAndGet();
+    }
+    removeEntry(entry);
+    return false;
+  }
+
+  @Override
+  public void release(Object obj) throws Exception {
+    MyBagEntry entry = (MyBagEntry) obj;
+    if (resized && takeSurplus()) {
+      removeEntry(entry);
+    } else {
+      bag.requite(entry);
+    }
+  }
+
+  @Override
+  public void resize(int poolSize) throws Exception {
+    int change = poolSize - this.poolSize;
+    this.poolSize = poolSize;
+    resized = true;
+    if (change < 0) {
+      surplus.addAndGet(-change);
+      for (MyBagEntry entry : bag.values(ConcurrentBag.IConcurrentBagEntry.STATE_NOT_IN_USE)) {
+        if (bag.reserve(entry)) {
+          if (takeSurplus()) {
+            removeEntry(entry);
+          } else {
+            bag.unreserve(entry);
+            break;
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < change; i++) {
+        if (takeSurplus()) {
+          continue;
+        }
+        try {
+          addEntry();
+        } catch (Exception e) {
+          missing.incrementAndGet();
+          throw e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() throws Exception {
+    for (MyBagEntry entry : bag.values(ConcurrentBag.IConcurrentBagEntry.STATE_NOT_IN_USE)) {
+      if (bag.reserve(entry)) {
+        removeEntry(entry);
+      }
+    }
+    bag.close();
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsFailureInjection() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsResize() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsOccupancy() {
+    return true;
+  }
+
+  @Override
+  public void sampleOccupancy(Occupancy occupancy) {
+    occupancy.claimed = bag.getCount(ConcurrentBag.IConcurrentBagEntry.STATE_IN_USE);
+    occupancy.idle = bag.getCount(ConcurrentBag.IConcurrentBagEntry.STATE_NOT_IN_USE);
+    occupancy.waiting = bag.getWaitingThreadCount();
+  }
+
+  @Override
+  public boolean supportsResources() {
+    return true;
+  }
+
+  @Override
+  public void setResourceFactory(ResourceFactory factory) {
+    resourceFactory = factory;
+  }
+
+  @Override
+  public Object resource(Object obj) {
+    return ((MyBagEntry) obj).resource;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.hikaricp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.zaxxer.hikari.util.ConcurrentBag;
+
+public class MyBagEntry implements ConcurrentBag.IConcurrentBagEntry {
+  private final AtomicInteger state = new AtomicInteger(STATE_NOT_IN_USE);
+  final Object resource;
+
+  public MyBagEntry() {
+    this(null);
+  }
+
+  MyBagEntry(Object resource) {
+    this.resource = resource;
+  }
+
+  @Override
+  public boolean compareAndSet(int from, int to) {
+    return state.compareAndSet(from, to);
+  }
+
+  @Override
+  public void setState(int newState) {
+    state.set(newState);
+  }
+
+  @Override
+  public int getState() {
+    return state.get();
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.reference;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.ResourceFactory;
+
+/**
+ * The simplest possible pool: the available objects in a locking
+ * {@link ArrayBlockingQueue}. Batches are claimed by draining as many objects
+ * as are available under a single lock acquisition, and then taking the rest
+ * one at a time. Given a {@link ResourceFactory}, the queue holds the
+ * resources themselves.
+ */
+public class ArrayBlockingQueuePool implements PoolAdapter {
+  private BlockingQueue<Object> queue;
+  private int poolSize;
+  private ResourceFactory resourceFactory;
+
+  @Override
+  public String name() {
+    return "ArrayBlockingQueue";
+  }
+
+  @Override
+  public void create(int poolSize) throws Exception {
+    this.poolSize = poolSize;
+    queue = new ArrayBlockingQueue<>(poolSize);
+    for (int at = 0; at != poolSize; ++at) {
+      Costs.expendAllocation();
+      queue.add(resourceFactory == null ? new Object() : resourceFactory.allocate());
+    }
+  }
+
+  @Override
+  public Object claim() throws InterruptedException {
+    Object obj = queue.take();
+    Costs.expendValidation();
+    return obj;
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) throws InterruptedException {
+    Object obj = queue.poll(timeout, unit);
+    if (obj != null) {
+      Costs.expendValidation();
+    }
+    return obj;
+  }
+
+  @Override
+  public void claimAll(Object[] objs, int count) throws InterruptedException {
+    int claimed = queue.drainTo(new ArrayFiller(objs), count);
+    for (int i = claimed; i < count; i++) {
+      objs[i] = queue.take();
+    }
+    for (int i = 0; i < count; i++) {
+      Costs.expendValidation();
+    }
+  }
+
+  @Override
+  public boolean claimAll(Object[] objs, int count, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int claimed = queue.drainTo(new ArrayFiller(objs), count);
+    for (int i = claimed; i < count; i++) {
+      objs[i] = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      if (objs[i] == null) {
+        releaseAll(objs, i);
+        return false;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      Costs.expendValidation();
+    }
+    return true;
+  }
+
+  @Override
+  public void release(Object obj) {
+    queue.add(obj);
+  }
+
+  @Override
+  public void releaseAll(Object[] objs, int count) {
+    for (int i = 0; i < count; i++) {
+      queue.add(objs[i]);
+      objs[i] = null;
+    }
+  }
+
+
+  @Override
+  public void shutdown() throws Exception {
+    for (int i = 0; i < poolSize; i++) {
+      Costs.expendDeallocation();
+    }
+    if (resourceFactory != null) {
+      Object obj;
+      while ((obj = queue.poll()) != null) {
+        resourceFactory.deallocate(obj);
+      }
+    }
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsBulk() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsResources() {
+    return true;
+  }
+
+  @Override
+  public void setResourceFactory(ResourceFactory factory) {
+    resourceFactory = factory;
+  }
+
+  @Override
+  public Object resource(Object obj) {
+    return obj;
+  }
+
+  /**
+   * Lets {@link BlockingQueue#drainTo(java.util.Collection, int)} fill an array.
+   */
+  private static final class ArrayFiller extends AbstractCollection<Object> {
+    private final Object[] objs;
+    private int size;
+
+    ArrayFiller(Object[] objs) {
+      this.objs = objs;
+    }
+
+    @Override
+    public boolean add(Object obj) {
+      objs[size++] = obj;
+      return true;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.reference;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import objectpoolbenchmark.suite.Costs;
+
+/**
+ * The objects are kept in an {@link AtomicReferenceArray}, where a null entry
+ * means the object in that position is claimed. Claims scan the array from a
+ * random position, and take the first available object with a CAS. Releases
+ * put the object back in its own position.
+ */
+public class BitmapPool extends ReferencePoolAdapter {
+  private AtomicReferenceArray<Entry> entries;
+
+  @Override
+  public String name() {
+    return "ReferenceBitmap";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    entries = new AtomicReferenceArray<>(poolSize);
+    for (int i = 0; i < poolSize; i++) {
+      Costs.expendAllocation();
+      entries.set(i, new Entry(i));
+    }
+  }
+
+  @Override
+  protected Object tryClaim() {
+    int length = entries.length();
+    int start = ThreadLocalRandom.current().nextInt(length);
+    for (int i = 0; i < length; i++) {
+      int index = start + i < length ? start + i : start + i - length;
+      Entry entry = entries.get(index);
+      if (entry != null && entries.compareAndSet(index, entry, null)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void release(Object obj) {
+    Entry entry = (Entry) obj;
+    entries.lazySet(entry.index, entry);
+  }
+
+  @Override
+  public void shutdown() {
+    for (int i = 0; i < entries.length(); i++) {
+      Costs.expendDeallocation();
+    }
+  }
+
+  private static final class Entry {
+    private final int index;
+
+    Entry(int index) {
+      this.index = index;
+    }
+  }
+}
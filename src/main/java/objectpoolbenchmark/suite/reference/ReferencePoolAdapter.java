@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.reference;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.PoolAdapter;
+
+/**
+ * Base class for the in-house reference pools. These pools are deliberately
+ * minimal, to show how fast a pool can be on the given hardware.
+ *
+ * The subclasses only implement a non-blocking {@link #tryClaim()}. When the
+ * pool is exhausted, claims spin, then yield, and then park for short
+ * intervals, until an object is released. Like the ConcurrentBag, the
+ * validation cost is spent on every successful claim.
+ */
+public abstract class ReferencePoolAdapter implements PoolAdapter {
+  private static final int SPINS = 64;
+  private static final int YIELDS = 64;
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+  protected abstract Object tryClaim();
+
+  @Override
+  public Object claim() {
+    Object obj;
+    int attempt = 0;
+    while ((obj = tryClaim()) == null) {
+      backoff(attempt++);
+    }
+    Costs.expendValidation();
+    return obj;
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    Object obj;
+    int attempt = 0;
+    while ((obj = tryClaim()) == null) {
+      if (System.nanoTime() - deadline >= 0) {
+        return null;
+      }
+      backoff(attempt++);
+    }
+    Costs.expendValidation();
+    return obj;
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return false;
+  }
+
+  protected static void backoff(int attempt) {
+    if (attempt < SPINS) {
+      Thread.onSpinWait();
+    } else if (attempt < SPINS + YIELDS) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+  }
+}
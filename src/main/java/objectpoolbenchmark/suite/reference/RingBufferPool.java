@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.reference;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import objectpoolbenchmark.suite.Costs;
+
+/**
+ * The available objects are kept in a bounded multi-producer, multi-consumer
+ * ring buffer, where every cell has a sequence number that tells producers
+ * and consumers whose turn it is. Claims dequeue and releases enqueue. The
+ * buffer can hold every object in the pool, so releases only ever wait for a
+ * claim that is still in the middle of vacating the cell.
+ *
+ * Batches are claimed and released in bulk, by moving the head or tail past
+ * all the cells of the batch with a single CAS. Batches are claimed all or
+ * nothing, so threads claiming batches never hold on to partial batches.
+ */
+public class RingBufferPool extends ReferencePoolAdapter {
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+  private AtomicReferenceArray<Object> buffer;
+  private AtomicLongArray sequences;
+  private int mask;
+  private int poolSize;
+
+  @Override
+  public String name() {
+    return "ReferenceRingBuffer";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    this.poolSize = poolSize;
+    int capacity = Integer.highestOneBit(Math.max(1, poolSize - 1)) << 1;
+    mask = capacity - 1;
+    buffer = new AtomicReferenceArray<>(capacity);
+    sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+    for (int i = 0; i < poolSize; i++) {
+      Costs.expendAllocation();
+      release(new Object());
+    }
+  }
+
+  @Override
+  protected Object tryClaim() {
+    long position = head.get();
+    for (;;) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          Object obj = buffer.get(index);
+          buffer.lazySet(index, null);
+          sequences.lazySet(index, position + mask + 1);
+          return obj;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        return null;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  @Override
+  public void claimAll(Object[] objs, int count) {
+    int attempt = 0;
+    while (!tryClaimAll(objs, count)) {
+      backoff(attempt++);
+    }
+    for (int i = 0; i < count; i++) {
+      Costs.expendValidation();
+    }
+  }
+
+  @Override
+  public boolean claimAll(Object[] objs, int count, long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int attempt = 0;
+    while (!tryClaimAll(objs, count)) {
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      backoff(attempt++);
+    }
+    for (int i = 0; i < count; i++) {
+      Costs.expendValidation();
+    }
+    return true;
+  }
+
+  private boolean tryClaimAll(Object[] objs, int count) {
+    long position = head.get();
+    for (;;) {
+      long difference = 0;
+      for (int i = 0; i < count && difference == 0; i++) {
+        difference = sequences.get((int) (position + i) & mask) - (position + i + 1);
+      }
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + count)) {
+          for (int i = 0; i < count; i++) {
+            int index = (int) (position + i) & mask;
+            objs[i] = buffer.get(index);
+            buffer.lazySet(index, null);
+            sequences.lazySet(index, position + i + mask + 1);
+          }
+          return true;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  @Override
+  public void releaseAll(Object[] objs, int count) {
+    long position = tail.get();
+    for (;;) {
+      long difference = 0;
+      for (int i = 0; i < count && difference == 0; i++) {
+        difference = sequences.get((int) (position + i) & mask) - (position + i);
+      }
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + count)) {
+          for (int i = 0; i < count; i++) {
+            int index = (int) (position + i) & mask;
+            buffer.lazySet(index, objs[i]);
+            sequences.lazySet(index, position + i + 1);
+            objs[i] = null;
+          }
+          return;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        Thread.onSpinWait();
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  @Override
+  public void release(Object obj) {
+    long position = tail.get();
+    for (;;) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          buffer.lazySet(index, obj);
+          sequences.lazySet(index, position + 1);
+          return;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        Thread.onSpinWait();
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  @Override
+  public boolean supportsBulk() {
+    return true;
+  }
+
+  @Override
+  public void shutdown() {
+    for (int i = 0; i < poolSize; i++) {
+      Costs.expendDeallocation();
+    }
+  }
+}
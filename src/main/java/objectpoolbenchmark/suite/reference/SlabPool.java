@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.reference;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.PayloadFactory;
+import objectpoolbenchmark.suite.ResourceFactory;
+
+/**
+ * A slab allocator: a single direct {@link ByteBuffer} is allocated up front,
+ * and sliced into one buffer per pooled object, so the buffers cost a single
+ * native allocation, and have no per-buffer bookkeeping in the JVM. The slices
+ * are claimed and released like in the {@link BitmapPool}.
+ *
+ * The size of the slices is taken from the {@link PayloadFactory} given as the
+ * resource factory. For heap payloads, the slab is a heap buffer, and the
+ * slices are heap buffers instead of byte arrays. Without a factory, the
+ * slices are {@value #DEFAULT_SLICE_SIZE} bytes of a direct slab.
+ */
+public class SlabPool extends ReferencePoolAdapter {
+  private static final int DEFAULT_SLICE_SIZE = 64;
+
+  private int sliceSize = DEFAULT_SLICE_SIZE;
+  private boolean direct = true;
+  private AtomicReferenceArray<Slice> slices;
+
+  @Override
+  public String name() {
+    return "ReferenceSlab";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    Costs.expendAllocation();
+    int slabSize = Math.multiplyExact(poolSize, sliceSize);
+    ByteBuffer slab = direct ? ByteBuffer.allocateDirect(slabSize) : ByteBuffer.allocate(slabSize);
+    slices = new AtomicReferenceArray<>(poolSize);
+    for (int i = 0; i < poolSize; i++) {
+      slab.limit((i + 1) * sliceSize).position(i * sliceSize);
+      slices.set(i, new Slice(i, slab.slice()));
+    }
+  }
+
+  @Override
+  protected Object tryClaim() {
+    int length = slices.length();
+    int start = ThreadLocalRandom.current().nextInt(length);
+    for (int i = 0; i < length; i++) {
+      int index = start + i < length ? start + i : start + i - length;
+      Slice slice = slices.get(index);
+      if (slice != null && slices.compareAndSet(index, slice, null)) {
+        return slice;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void release(Object obj) {
+    Slice slice = (Slice) obj;
+    slices.lazySet(slice.index, slice);
+  }
+
+  @Override
+  public void shutdown() {
+    Costs.expendDeallocation();
+  }
+
+  @Override
+  public boolean supportsResources() {
+    return true;
+  }
+
+  @Override
+  public void setResourceFactory(ResourceFactory factory) {
+    if (!(factory instanceof PayloadFactory)) {
+      throw new IllegalArgumentException(name() + " can only hold payloads");
+    }
+    PayloadFactory payloads = (PayloadFactory) factory;
+    sliceSize = payloads.size();
+    direct = payloads.isDirect();
+  }
+
+  @Override
+  public Object resource(Object obj) {
+    return ((Slice) obj).buffer;
+  }
+
+  private static final class Slice {
+    private final int index;
+    private final ByteBuffer buffer;
+
+    Slice(int index, ByteBuffer buffer) {
+      this.index = index;
+      this.buffer = buffer;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.reference;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import objectpoolbenchmark.suite.Costs;
+
+/**
+ * Modelled on the thread-local slot reuse in Stormpot's BlazePool. Every
+ * thread remembers the slot it last released, and first tries to claim that
+ * slot again, which is uncontended as long as the pool is not exhausted.
+ * Otherwise, the thread scans the slots from its own stripe, a start position
+ * derived from its identity, so threads tend not to race for the same slots.
+ */
+public class StripedPool extends ReferencePoolAdapter {
+  private static final int FREE = 0;
+  private static final int CLAIMED = 1;
+
+  private final ThreadLocal<Slot> cache = new ThreadLocal<>();
+  private Slot[] slots;
+
+  @Override
+  public String name() {
+    return "ReferenceStriped";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    slots = new Slot[poolSize];
+    for (int i = 0; i < poolSize; i++) {
+      Costs.expendAllocation();
+      slots[i] = new Slot();
+    }
+  }
+
+  @Override
+  protected Object tryClaim() {
+    Slot slot = cache.get();
+    if (slot != null && slot.compareAndSet(FREE, CLAIMED)) {
+      return slot;
+    }
+    int length = slots.length;
+    int start = (int) (((Thread.currentThread().getId() * 0x9E3779B9L) >>> 1) % length);
+    for (int i = 0; i < length; i++) {
+      int index = start + i < length ? start + i : start + i - length;
+      slot = slots[index];
+      if (slot.get() == FREE && slot.compareAndSet(FREE, CLAIMED)) {
+        return slot;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void release(Object obj) {
+    Slot slot = (Slot) obj;
+    slot.lazySet(FREE);
+    cache.set(slot);
+  }
+
+  @Override
+  public void shutdown() {
+    for (int i = 0; i < slots.length; i++) {
+      Costs.expendDeallocation();
+    }
+  }
+
+  private static final class Slot extends AtomicInteger {
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.stormpot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import stormpot.MetricsRecorder;
+
+/**
+ * Counts the work of the allocator thread of Stormpot, which records a
+ * latency sample for every allocation, reallocation and deallocation it does.
+ * The latencies themselves are not kept, so there are no percentiles.
+ */
+public class CountingMetricsRecorder implements MetricsRecorder {
+  private final LongAdder allocations = new LongAdder();
+  private final LongAdder reallocations = new LongAdder();
+  private final LongAdder deallocations = new LongAdder();
+
+  /**
+   * Allocations, including failed ones, and reallocations, which deallocate
+   * an object, and allocate a new one in its place.
+   */
+  public long allocations() {
+    return allocations.sum() + reallocations.sum();
+  }
+
+  public long deallocations() {
+    return deallocations.sum() + reallocations.sum();
+  }
+
+  @Override
+  public void recordAllocationLatencySampleMillis(long milliseconds) {
+    allocations.increment();
+  }
+
+  @Override
+  public void recordAllocationFailureLatencySampleMillis(long milliseconds) {
+    allocations.increment();
+  }
+
+  @Override
+  public void recordDeallocationLatencySampleMillis(long milliseconds) {
+    deallocations.increment();
+  }
+
+  @Override
+  public void recordReallocationLatencySampleMillis(long milliseconds) {
+    reallocations.increment();
+  }
+
+  @Override
+  public void recordReallocationFailureLatencySampleMillis(long milliseconds) {
+    reallocations.increment();
+  }
+
+  @Override
+  public void recordObjectLifetimeSampleMillis(long milliseconds) {
+  }
+
+  @Override
+  public double getAllocationLatencyPercentile(double percentile) {
+    return Double.NaN;
+  }
+
+  @Override
+  public double getAllocationFailureLatencyPercentile(double percentile) {
+    return Double.NaN;
+  }
+
+  @Override
+  public double getDeallocationLatencyPercentile(double percentile) {
+    return Double.NaN;
+  }
+
+  @Override
+  public double getReallocationLatencyPercentile(double percentile) {
+    return Double.NaN;
+  }
+
+  @Override
+  public double getReallocationFailureLatencyPercentile(double percentile) {
+    return Double.NaN;
+  }
+
+  @Override
+  public double getObjectLifetimePercentile(double percentile) {
+    return Double.NaN;
+  }
+}
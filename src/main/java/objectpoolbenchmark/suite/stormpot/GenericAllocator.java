@@ -16,6 +16,8 @@
 package objectpoolbenchmark.suite.stormpot;
 
 import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.LiveObjects;
 import stormpot.Allocator;
 import stormpot.Slot;
 
@@ -23,11 +25,15 @@ public class GenericAllocator implements Allocator<GenericPoolable> {
   @Override
   public GenericPoolable allocate(Slot slot) throws Exception {
     Costs.expendAllocation();
+    Failures.allocation();
+    LiveObjects.allocated();
     return new GenericPoolable(slot);
   }
 
   @Override
   public void deallocate(GenericPoolable genericPoolable) throws Exception {
     Costs.expendDeallocation();
+    LiveObjects.deallocated();
+    Failures.deallocation();
   }
 }
@@ -20,7 +20,14 @@ import stormpot.Poolable;
 import stormpot.Slot;
 
 public class GenericPoolable extends BasePoolable {
+  final Object resource;
+
   public GenericPoolable(Slot slot) {
+    this(slot, null);
+  }
+
+  GenericPoolable(Slot slot, Object resource) {
     super(slot);
+    this.resource = resource;
   }
 }
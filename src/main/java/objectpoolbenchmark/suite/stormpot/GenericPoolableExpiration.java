@@ -16,6 +16,7 @@
 package objectpoolbenchmark.suite.stormpot;
 
 import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
 import stormpot.Expiration;
 import stormpot.SlotInfo;
 
@@ -23,6 +24,6 @@ public class GenericPoolableExpiration implements Expiration<GenericPoolable> {
   @Override
   public boolean hasExpired(SlotInfo<? extends GenericPoolable> info) {
     Costs.expendValidation();
-    return false;
+    return !Failures.validation();
   }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.stormpot;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.ExpirationPolicy;
+import stormpot.Expiration;
+import stormpot.SlotInfo;
+
+/**
+ * Remembers whether an object is mortal in the slot stamp, which Stormpot
+ * resets to zero whenever the slot is reallocated.
+ */
+public class PolicyExpiration implements Expiration<GenericPoolable> {
+  private static final long MORTAL = 1;
+  private static final long IMMORTAL = 2;
+
+  private final ExpirationPolicy policy;
+
+  public PolicyExpiration(ExpirationPolicy policy) {
+    this.policy = policy;
+  }
+
+  @Override
+  public boolean hasExpired(SlotInfo<? extends GenericPoolable> info) {
+    Costs.expendValidation();
+    long stamp = info.getStamp();
+    if (stamp == 0) {
+      stamp = policy.isMortal() ? MORTAL : IMMORTAL;
+      info.setStamp(stamp);
+    }
+    return !Failures.validation()
+        || policy.hasExpired(stamp == MORTAL, info.getAgeMillis(), info.getClaimCount());
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.stormpot;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.LiveObjects;
+import objectpoolbenchmark.suite.ResourceFactory;
+import stormpot.Allocator;
+import stormpot.Slot;
+
+public class ResourceAllocator implements Allocator<GenericPoolable> {
+  private final ResourceFactory resources;
+
+  public ResourceAllocator(ResourceFactory resources) {
+    this.resources = resources;
+  }
+
+  @Override
+  public GenericPoolable allocate(Slot slot) throws Exception {
+    Costs.expendAllocation();
+    Failures.allocation();
+    GenericPoolable poolable = new GenericPoolable(slot, resources.allocate());
+    LiveObjects.allocated();
+    return poolable;
+  }
+
+  @Override
+  public void deallocate(GenericPoolable poolable) throws Exception {
+    Costs.expendDeallocation();
+    LiveObjects.deallocated();
+    resources.deallocate(poolable.resource);
+    Failures.deallocation();
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.stormpot;
+
+import objectpoolbenchmark.suite.ResourceFactory;
+import stormpot.Expiration;
+import stormpot.SlotInfo;
+
+/**
+ * Stormpot validates objects through their expiration, so resources that do
+ * not validate are treated as expired, and get reallocated.
+ */
+public class ResourceExpiration implements Expiration<GenericPoolable> {
+  private final Expiration<GenericPoolable> expiration;
+  private final ResourceFactory resources;
+
+  public ResourceExpiration(Expiration<GenericPoolable> expiration, ResourceFactory resources) {
+    this.expiration = expiration;
+    this.resources = resources;
+  }
+
+  @Override
+  public boolean hasExpired(SlotInfo<? extends GenericPoolable> info) throws Exception {
+    return expiration.hasExpired(info) || !resources.validate(info.getPoolable().resource);
+  }
+}
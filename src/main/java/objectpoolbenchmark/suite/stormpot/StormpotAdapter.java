@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.stormpot;
+
+import java.util.concurrent.TimeUnit;
+
+import objectpoolbenchmark.suite.ExpirationPolicy;
+import objectpoolbenchmark.suite.Occupancy;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.ResourceFactory;
+import stormpot.Allocator;
+import stormpot.Expiration;
+import stormpot.ManagedPool;
+import stormpot.Pool;
+import stormpot.PoolBuilder;
+import stormpot.Timeout;
+
+public class StormpotAdapter implements PoolAdapter {
+  private final Timeout timeout = new Timeout(10, TimeUnit.SECONDS);
+  private volatile Timeout lastTimeout = timeout;
+  private Expiration<GenericPoolable> expiration = new GenericPoolableExpiration();
+  private ResourceFactory resourceFactory;
+  private CountingMetricsRecorder metrics;
+  private Pool<GenericPoolable> pool;
+
+  @Override
+  public String name() {
+    return "StormpotBlazePool";
+  }
+
+  @Override
+  public String artifact() {
+    return "com.github.chrisvest:stormpot";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    Allocator<GenericPoolable> allocator = new GenericAllocator();
+    Expiration<GenericPoolable> poolExpiration = expiration;
+    if (resourceFactory != null) {
+      allocator = new ResourceAllocator(resourceFactory);
+      poolExpiration = new ResourceExpiration(expiration, resourceFactory);
+    }
+    PoolBuilder<GenericPoolable> builder = Pool.from(allocator).setSize(poolSize).setExpiration(poolExpiration);
+    if (Occupancy.isRecordingMetrics()) {
+      metrics = new CountingMetricsRecorder();
+      builder.setMetricsRecorder(metrics);
+    }
+    pool = builder.build();
+  }
+
+  @Override
+  public Object claim() throws Exception {
+    return pool.claim(timeout);
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) throws Exception {
+    return pool.claim(timeout(timeout, unit));
+  }
+
+  /**
+   * The benchmarks claim with the same timeout over and over, so the last
+   * Timeout is kept, instead of allocating one for every claim.
+   */
+  private Timeout timeout(long timeout, TimeUnit unit) {
+    Timeout last = lastTimeout;
+    if (last.getTimeout() != timeout || last.getUnit() != unit) {
+      last = new Timeout(timeout, unit);
+      lastTimeout = last;
+    }
+    return last;
+  }
+
+  @Override
+  public void release(Object obj) {
+    ((GenericPoolable) obj).release();
+  }
+
+  @Override
+  public void shutdown() throws InterruptedException {
+    pool.shutdown().await(timeout);
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsFailureInjection() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsResize() {
+    return true;
+  }
+
+  @Override
+  public void resize(int poolSize) {
+    pool.setTargetSize(poolSize);
+  }
+
+  @Override
+  public boolean supportsOccupancy() {
+    return true;
+  }
+
+  /**
+   * Stormpot does not count the claimed objects, or the waiting threads, but
+   * the allocator thread can count its work in a metrics recorder.
+   */
+  @Override
+  public void sampleOccupancy(Occupancy occupancy) {
+    ManagedPool managedPool = pool.getManagedPool();
+    occupancy.allocations = managedPool.getAllocationCount();
+    if (metrics != null) {
+      occupancy.deallocations = metrics.deallocations();
+    }
+  }
+
+  @Override
+  public boolean supportsExpiration() {
+    return true;
+  }
+
+  @Override
+  public void setExpirationPolicy(ExpirationPolicy policy) {
+    expiration = new PolicyExpiration(policy);
+  }
+
+  @Override
+  public boolean supportsResources() {
+    return true;
+  }
+
+  @Override
+  public void setResourceFactory(ResourceFactory factory) {
+    resourceFactory = factory;
+  }
+
+  @Override
+  public Object resource(Object obj) {
+    return ((GenericPoolable) obj).resource;
+  }
+}
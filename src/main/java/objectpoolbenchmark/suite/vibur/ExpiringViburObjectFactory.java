@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.vibur;
+
+import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
+import objectpoolbenchmark.suite.ExpirationPolicy;
+
+public class ExpiringViburObjectFactory extends ViburObjectFactory {
+  private final ExpirationPolicy policy;
+
+  public ExpiringViburObjectFactory(ExpirationPolicy policy) {
+    this.policy = policy;
+  }
+
+  @Override
+  public MyViburObject create() {
+    Costs.expendAllocation();
+    Failures.allocation();
+    return new ExpiringViburObject(policy.isMortal());
+  }
+
+  @Override
+  public boolean readyToTake(MyViburObject obj) {
+    ExpiringViburObject expiring = (ExpiringViburObject) obj;
+    long age = System.currentTimeMillis() - expiring.createTime;
+    return super.readyToTake(obj) && !policy.hasExpired(expiring.mortal, age, expiring.claims++);
+  }
+
+  private static class ExpiringViburObject extends MyViburObject {
+    private final long createTime = System.currentTimeMillis();
+    private final boolean mortal;
+    private long claims;
+
+    ExpiringViburObject(boolean mortal) {
+      this.mortal = mortal;
+    }
+  }
+}
@@ -16,4 +16,5 @@
 package objectpoolbenchmark.suite.vibur;
 
 public class MyViburObject {
+  Object resource;
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.vibur;
+
+import objectpoolbenchmark.suite.ResourceFactory;
+
+public class ResourceViburObjectFactory extends ViburObjectFactory {
+  private final ResourceFactory resources;
+
+  public ResourceViburObjectFactory(ResourceFactory resources) {
+    this.resources = resources;
+  }
+
+  @Override
+  public MyViburObject create() {
+    MyViburObject obj = super.create();
+    try {
+      obj.resource = resources.allocate();
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to allocate resource", e);
+    }
+    return obj;
+  }
+
+  @Override
+  public boolean readyToTake(MyViburObject obj) {
+    return super.readyToTake(obj) && resources.validate(obj.resource);
+  }
+
+  @Override
+  public void destroy(MyViburObject obj) {
+    try {
+      resources.deallocate(obj.resource);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to deallocate resource", e);
+    }
+    super.destroy(obj);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite.vibur;
+
+import java.util.concurrent.TimeUnit;
+
+import objectpoolbenchmark.suite.ExpirationPolicy;
+import objectpoolbenchmark.suite.Occupancy;
+import objectpoolbenchmark.suite.PoolAdapter;
+import objectpoolbenchmark.suite.ResourceFactory;
+import org.vibur.objectpool.ConcurrentPool;
+import org.vibur.objectpool.util.ConcurrentLinkedQueueCollection;
+
+public class ViburAdapter implements PoolAdapter {
+  private ExpirationPolicy expirationPolicy;
+  private ResourceFactory resourceFactory;
+  private ConcurrentPool<MyViburObject> pool;
+
+  @Override
+  public String name() {
+    return "ViburObjectPool";
+  }
+
+  @Override
+  public String artifact() {
+    return "org.vibur:vibur-object-pool";
+  }
+
+  @Override
+  public void create(int poolSize) {
+    if (expirationPolicy != null && resourceFactory != null) {
+      throw new IllegalStateException("Expiration and resources cannot be combined");
+    }
+    ViburObjectFactory factory = new ViburObjectFactory();
+    if (expirationPolicy != null) {
+      factory = new ExpiringViburObjectFactory(expirationPolicy);
+    } else if (resourceFactory != null) {
+      factory = new ResourceViburObjectFactory(resourceFactory);
+    }
+    ConcurrentLinkedQueueCollection<MyViburObject> collection = new ConcurrentLinkedQueueCollection<>();
+    pool = new ConcurrentPool<>(collection, factory, poolSize, poolSize, false);
+  }
+
+  @Override
+  public Object claim() {
+    return pool.take();
+  }
+
+  @Override
+  public Object claim(long timeout, TimeUnit unit) {
+    return pool.tryTake(timeout, unit);
+  }
+
+  @Override
+  public void release(Object obj) {
+    pool.restore((MyViburObject) obj);
+  }
+
+  @Override
+  public void shutdown() {
+    pool.terminate();
+  }
+
+  @Override
+  public boolean supportsTimeouts() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsValidation() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsFailureInjection() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsOccupancy() {
+    return true;
+  }
+
+  /**
+   * Vibur does not count the waiting threads, or the objects it has
+   * allocated over time.
+   */
+  @Override
+  public void sampleOccupancy(Occupancy occupancy) {
+    occupancy.claimed = pool.taken();
+    occupancy.idle = pool.remainingCreated();
+  }
+
+  @Override
+  public boolean supportsExpiration() {
+    return true;
+  }
+
+  @Override
+  public void setExpirationPolicy(ExpirationPolicy policy) {
+    expirationPolicy = policy;
+  }
+
+  @Override
+  public boolean supportsResources() {
+    return true;
+  }
+
+  @Override
+  public void setResourceFactory(ResourceFactory factory) {
+    resourceFactory = factory;
+  }
+
+  @Override
+  public Object resource(Object obj) {
+    return ((MyViburObject) obj).resource;
+  }
+}
@@ -16,19 +16,21 @@
 package objectpoolbenchmark.suite.vibur;
 
 import objectpoolbenchmark.suite.Costs;
+import objectpoolbenchmark.suite.Failures;
 import org.vibur.objectpool.PoolObjectFactory;
 
 public class ViburObjectFactory implements PoolObjectFactory<MyViburObject> {
   @Override
   public MyViburObject create() {
     Costs.expendAllocation();
+    Failures.allocation();
     return new MyViburObject();
   }
 
   @Override
   public boolean readyToTake(MyViburObject obj) {
     Costs.expendValidation();
-    return true;
+    return Failures.validation();
   }
 
   @Override
@@ -39,5 +41,6 @@ public class ViburObjectFactory implements PoolObjectFactory<MyViburObject> {
   @Override
   public void destroy(MyViburObject obj) {
     Costs.expendDeallocation();
+    Failures.deallocation();
   }
 }
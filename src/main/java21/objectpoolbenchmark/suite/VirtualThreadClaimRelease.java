@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014 Chris Vest (mr.chrisvest@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package objectpoolbenchmark.suite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import objectpoolbenchmark.openloop.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Runs the claim, hold for {@code cost.of.usage}, release cycle from many
+ * virtual threads at once. Each benchmark operation starts
+ * {@code virtualThreads} virtual threads that each do
+ * {@code cyclesPerThread} cycles, and waits for them all to finish.
+ *
+ * The {@link Cycles} counter reports the cycle throughput, and the
+ * {@link CycleStats} counter reports the number of
+ * {@code jdk.VirtualThreadPinned} events that JFR recorded during each
+ * iteration. The cycle latencies are published to the {@link Latencies} as
+ * {@code cycle}, so run with
+ * {@code -prof objectpoolbenchmark.profile.LatencyProfiler} to get their
+ * percentiles.
+ *
+ * Only compiled with the {@code java21} profile.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+public class VirtualThreadClaimRelease
+{
+  @Param({
+      "StormpotBlazePool",
+      "Furious",
+      "CommonsPool2",
+      "CommonsPoolGeneric",
+      "CommonsPoolStack",
+      "ViburObjectPool",
+      "EasyPool",
+      "ConcurrentBag",
+      "ArrayBlockingQueue",
+      "ReferenceBitmap",
+      "ReferenceRingBuffer",
+      "ReferenceStriped"})
+  public String pool;
+
+  @Param({"10"})
+  public int poolSize;
+
+  @Param({"1000", "10000"})
+  public int virtualThreads;
+
+  @Param({"100"})
+  public int cyclesPerThread;
+
+  private PoolAdapter adapter;
+
+  @Setup
+  public void preparePool() throws Exception {
+    adapter = PoolAdapters.create(pool);
+    adapter.create(poolSize);
+  }
+
+  @TearDown
+  public void tearDownPool() throws Exception {
+    adapter.shutdown();
+  }
+
+  @Benchmark
+  public void burst(Cycles cycles, CycleStats stats) {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < virtualThreads; i++) {
+        executor.execute(() -> cycle(stats));
+      }
+    }
+    cycles.cycles += (long) virtualThreads * cyclesPerThread;
+  }
+
+  private void cycle(CycleStats stats) {
+    long[] latencies = new long[cyclesPerThread];
+    try {
+      for (int i = 0; i < latencies.length; i++) {
+        long start = System.nanoTime();
+        Object obj = adapter.claim();
+        Costs.expendUsage();
+        adapter.release(obj);
+        latencies[i] = System.nanoTime() - start;
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    stats.record(latencies);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Cycles {
+    public long cycles;
+  }
+
+  /**
+   * The virtual threads record their latencies here when they finish, under a
+   * lock rather than a monitor, so the recording itself does not pin carriers.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class CycleStats {
+    private final ReentrantLock lock = new ReentrantLock();
+    private LatencyHistogram histogram;
+    private Recording recording;
+
+    public long pinnedEvents;
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+      histogram = new LatencyHistogram();
+      recording = new Recording();
+      recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+      recording.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopIteration() throws Exception {
+      recording.stop();
+      Path file = Files.createTempFile("virtual-thread-pinning", ".jfr");
+      try {
+        recording.dump(file);
+        long pinned = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+          if (event.getEventType().getName().equals("jdk.VirtualThreadPinned")) {
+            pinned++;
+          }
+        }
+        pinnedEvents = pinned;
+      } finally {
+        recording.close();
+        Files.delete(file);
+      }
+      Latencies.publish("cycle", histogram);
+    }
+
+    void record(long[] latencies) {
+      lock.lock();
+      try {
+        for (long latency : latencies) {
+          histogram.record(latency);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+#!/bin/bash
+
+# The pools to compare, where <pool>@<version> loads that version of the library
+# side by side with the version the benchmarks are built with.
+POOLS=${POOLS:-CommonsPool2,CommonsPool2@2.6.2,CommonsPool2@2.4.3}
+THREAD_COUNTS=( 1 2 4 8 )
+FORKS=5
+ITERS=10
+WITERS=10
+POOL_SIZE=100
+
+if [ "Linux" == "$(uname -s)" ]
+then
+  CORES="$(grep -c "processor" /proc/cpuinfo)"
+else
+  CORES="$(sysctl hw.ncpu | cut -d ' ' -f 2)"
+fi
+DIR="results/$(date "+%Y-%m-%d")-$(uname -s)-$(uname -m)-${CORES}core-versions"
+
+artifact() {
+  case "$1" in
+    StormpotBlazePool) echo "com.github.chrisvest:stormpot" ;;
+    CommonsPool2) echo "org.apache.commons:commons-pool2" ;;
+    CommonsPoolGeneric|CommonsPoolStack) echo "commons-pool:commons-pool" ;;
+    Furious) echo "nf.fr.eraasoft:objectpool" ;;
+    ViburObjectPool) echo "org.vibur:vibur-object-pool" ;;
+    ConcurrentBag) echo "com.zaxxer:HikariCP" ;;
+  esac
+}
+
+mkdir -p $DIR
+mvn clean package
+
+# The benchmarks load the other library versions from the local Maven repository, so fetch them up front.
+for POOL in ${POOLS//,/ }
+do
+  if [[ "$POOL" == *@* ]]
+  then
+    mvn dependency:get -Dtransitive=false -Dartifact="$(artifact "${POOL%@*}"):${POOL#*@}"
+  fi
+done
+
+for THREADS in ${THREAD_COUNTS[@]}
+do
+  echo "Benchmarking $POOLS with $THREADS worker threads"
+  java -jar target/benchmarks.jar '.*suite.ClaimRelease.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p pool=$POOLS -p poolSize=$POOL_SIZE -bm thrpt -rff "${DIR}/${THREADS}-threads-thrpt.json"
+  java -jar target/benchmarks.jar '.*suite.ClaimRelease.*' -tu us -rf json -f $FORKS -i $ITERS -wi $WITERS -t $THREADS -p pool=$POOLS -p poolSize=$POOL_SIZE -bm sample -rff "${DIR}/${THREADS}-threads-sample.json"
+done
+
+java -cp target/benchmarks.jar objectpoolbenchmark.results.Results ingest results/results.db "$DIR"